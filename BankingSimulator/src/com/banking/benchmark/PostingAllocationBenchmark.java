@@ -0,0 +1,94 @@
+package com.banking.benchmark;
+
+import com.banking.model.Account;
+import com.banking.model.LedgerEntry;
+import com.banking.service.AccountManager;
+import com.banking.service.AdaptiveConcurrencyLimiter;
+import com.banking.service.AdmissionController;
+import com.banking.service.BalanceAlertTracker;
+import com.banking.service.EmailService;
+import com.banking.service.HoldManager;
+import com.banking.service.LedgerWriter;
+import com.banking.service.TransactionProcessor;
+import com.banking.service.VelocityRuleEngine;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Allocation check for the posting path, from admission through ledger hand-off, with the default
+ * velocity rules that production uses. The JDBC writer is replaced by a no-op so only our own code
+ * is measured; exits with status 1 if steady-state postings allocate.
+ * Usage: PostingAllocationBenchmark [operations]
+ */
+public class PostingAllocationBenchmark {
+    private static final int ACCOUNTS = 256;
+    private static final long ALLOWED_BYTES = 1024;
+
+    private static final LedgerWriter NO_OP_WRITER = new LedgerWriter() {
+        @Override
+        public void post(LedgerEntry entry, double balanceDelta) {
+        }
+
+        @Override
+        public void postTransfer(LedgerEntry debit, LedgerEntry credit) {
+        }
+
+        @Override
+        public void log(LedgerEntry entry) {
+        }
+    };
+
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        String[] accountIds = new String[ACCOUNTS];
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds[i] = String.format("ACC%07d", i);
+            accounts.add(new Account(accountIds[i], "Holder " + i, "holder" + i + "@example.com", 1_000_000, 0));
+        }
+
+        AccountManager accountManager = new AccountManager(accounts);
+        BalanceAlertTracker alertTracker = new BalanceAlertTracker(accountManager, new EmailService());
+        AdmissionController admission = new AdmissionController(1e12, Integer.MAX_VALUE, 1e12, Integer.MAX_VALUE,
+                new AdaptiveConcurrencyLimiter(1024, 1024, 1024));
+        TransactionProcessor processor = new TransactionProcessor(accountManager, alertTracker,
+                new HoldManager(), VelocityRuleEngine.withDefaultRules(), admission, NO_OP_WRITER);
+        processor.setConsoleOutput(false);
+
+        System.out.println("Warming up...");
+        run(processor, accountIds, operations);
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        run(processor, accountIds, operations);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        System.out.printf("%,d postings in %.1f ms (%.1f ns/posting)%n",
+                operations, elapsed / 1e6, (double) elapsed / operations);
+        System.out.printf("Allocated %,d bytes (%.4f bytes/posting)%n", allocated, (double) allocated / operations);
+
+        if (allocated > ALLOWED_BYTES) {
+            System.err.println("Posting path allocates; expected at most " + ALLOWED_BYTES + " bytes in total");
+            System.exit(1);
+        }
+    }
+
+    private static void run(TransactionProcessor processor, String[] accountIds, int operations) throws Exception {
+        for (int i = 0; i < operations; i++) {
+            String accountId = accountIds[i % ACCOUNTS];
+            switch (i % 3) {
+                case 0 -> processor.deposit(accountId, 10.0);
+                case 1 -> processor.withdraw(accountId, 10.0);
+                default -> processor.transfer(accountId, accountIds[(i + 1) % ACCOUNTS], 1.0);
+            }
+        }
+    }
+}
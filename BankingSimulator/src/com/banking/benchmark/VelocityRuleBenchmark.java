@@ -0,0 +1,127 @@
+package com.banking.benchmark;
+
+import com.banking.service.VelocityRule;
+import com.banking.service.VelocityRuleEngine;
+import com.banking.service.VelocityRuleEngine.PostingType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Throughput check for {@link VelocityRuleEngine}; needs no database. Before measuring it checks
+ * that a window sees every posting inside it and exits with status 1 if not.
+ * Usage: VelocityRuleBenchmark [accounts] [eventsPerThread] [threads]
+ */
+public class VelocityRuleBenchmark {
+    private static final PostingType[] TYPES = {
+            PostingType.WITHDRAWAL, PostingType.TRANSFER_OUT, PostingType.DEPOSIT, PostingType.TRANSFER_IN
+    };
+
+    public static void main(String[] args) throws InterruptedException {
+        int accountCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int eventsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        String[] accountIds = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountIds[i] = String.format("ACC%07d", i);
+        }
+
+        checkOutflowWindow();
+        checkKnownCounterparty();
+
+        VelocityRuleEngine engine = VelocityRuleEngine.withDefaultRules();
+
+        System.out.println("Warming up...");
+        run(engine, accountIds, 1, eventsPerThread / 2);
+
+        System.out.printf("Single thread: %,d events over %,d accounts%n", eventsPerThread, accountCount);
+        report(run(engine, accountIds, 1, eventsPerThread), eventsPerThread);
+
+        System.out.printf("%d threads: %,d events each%n", threads, eventsPerThread);
+        report(run(engine, accountIds, threads, eventsPerThread), (long) eventsPerThread * threads);
+    }
+
+    // Many small outflows within an hour: the total has to cross the limit no matter how many there are.
+    private static void checkOutflowWindow() {
+        VelocityRuleEngine engine = new VelocityRuleEngine(List.of(
+                VelocityRule.maxOutflow(50_000, Duration.ofHours(1))));
+        int breachedAt = -1;
+        for (int i = 1; i <= 1000 && breachedAt < 0; i++) {
+            if (engine.record("CHECK", PostingType.WITHDRAWAL, 780.0, null) != 0) {
+                breachedAt = i;
+            }
+        }
+        // 65 x 780 is the first total above 50,000.
+        if (breachedAt != 65) {
+            fail("1000 outflows of 780 in one hour should breach a 50,000 limit at posting 65, got " + breachedAt);
+        }
+    }
+
+    // A payee used between many one-off transfers must stay known: 10,001 distinct counterparties
+    // sit exactly at the limit, and only the next new one may breach it.
+    private static void checkKnownCounterparty() {
+        VelocityRuleEngine engine = new VelocityRuleEngine(List.of(
+                VelocityRule.maxNewCounterparties(10_001, Duration.ofHours(1))));
+        int breached = engine.record("CHECK", PostingType.TRANSFER_OUT, 1.0, "PAYEE");
+        for (int i = 0; i < 10_000; i++) {
+            breached |= engine.record("CHECK", PostingType.TRANSFER_OUT, 1.0, "ONE-OFF-" + i);
+            breached |= engine.record("CHECK", PostingType.TRANSFER_OUT, 1.0, "PAYEE");
+        }
+        if (breached != 0) {
+            fail("A regular payee was counted as a new counterparty again");
+        }
+        if (engine.record("CHECK", PostingType.TRANSFER_OUT, 1.0, "ONE-MORE") == 0) {
+            fail("The 10,002nd new counterparty should breach a limit of 10,001");
+        }
+    }
+
+    private static void fail(String message) {
+        System.err.println("Velocity check failed: " + message);
+        System.exit(1);
+    }
+
+    private static long run(VelocityRuleEngine engine, String[] accountIds, int threads, int events)
+            throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        long[] alerts = new long[threads];
+
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long breached = 0;
+                for (int i = 0; i < events; i++) {
+                    String accountId = accountIds[random.nextInt(accountIds.length)];
+                    String counterparty = accountIds[random.nextInt(accountIds.length)];
+                    PostingType type = TYPES[i & 3];
+                    breached += Integer.bitCount(engine.record(accountId, type, 100.0, counterparty));
+                }
+                alerts[worker] = breached;
+            }));
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long totalAlerts = 0;
+        for (long count : alerts) {
+            totalAlerts += count;
+        }
+        System.out.printf("  rule breaches reported: %,d%n", totalAlerts);
+        return elapsed;
+    }
+
+    private static void report(long elapsedNanos, long events) {
+        System.out.printf("  %,.0f events/sec, %.1f ns/event%n",
+                events * 1e9 / elapsedNanos, (double) elapsedNanos / events);
+    }
+}
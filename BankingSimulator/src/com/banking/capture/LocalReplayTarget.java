@@ -0,0 +1,41 @@
+package com.banking.capture;
+
+import com.banking.service.AccountManager;
+import com.banking.service.TransactionProcessor;
+
+/**
+ * Replays straight into the in-process services. Thread-safe, so every lane can share one instance.
+ */
+public class LocalReplayTarget implements ReplayTarget {
+    private final AccountManager accountManager;
+    private final TransactionProcessor transactionProcessor;
+
+    public LocalReplayTarget(AccountManager accountManager, TransactionProcessor transactionProcessor) {
+        this.accountManager = accountManager;
+        this.transactionProcessor = transactionProcessor;
+    }
+
+    @Override
+    public String execute(TraceRecord record) {
+        try {
+            switch (record.getCall()) {
+                case DEPOSIT -> transactionProcessor.deposit(record.getAccountId(), record.getAmount());
+                case WITHDRAW -> transactionProcessor.withdraw(record.getAccountId(), record.getAmount());
+                case TRANSFER -> transactionProcessor.transfer(record.getAccountId(), record.getRelatedAccountId(),
+                        record.getAmount());
+                case CREATE_ACCOUNT -> accountManager.createAccount(record.getAccountId(), record.getHolderName(),
+                        record.getEmail(), record.getAmount(), record.getMinThreshold());
+                case UPDATE_BALANCE -> accountManager.updateBalance(record.getAccountId(), record.getAmount());
+                case APPLY_BALANCE_DELTA -> accountManager.applyBalanceDelta(record.getAccountId(), record.getAmount());
+                case GET_BALANCE -> accountManager.getBalance(record.getAccountId());
+            }
+            return null;
+        } catch (Exception e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
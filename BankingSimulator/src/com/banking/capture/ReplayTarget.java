@@ -0,0 +1,22 @@
+package com.banking.capture;
+
+import java.io.IOException;
+
+/**
+ * A backend a trace can be replayed against. Each replay lane opens its own target, so an
+ * implementation only has to handle one call at a time.
+ */
+public interface ReplayTarget extends AutoCloseable {
+    String UNSUPPORTED = "Unsupported";
+
+    // Returns the simple class name of the failure, null on success, or UNSUPPORTED.
+    String execute(TraceRecord record) throws IOException;
+
+    @Override
+    void close() throws IOException;
+
+    @FunctionalInterface
+    interface Factory {
+        ReplayTarget open() throws IOException;
+    }
+}
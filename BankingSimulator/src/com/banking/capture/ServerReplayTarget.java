@@ -0,0 +1,71 @@
+package com.banking.capture;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Replays over the line protocol of a running {@code BankingServer}, one request in flight per
+ * connection. Direct balance overrides have no protocol command and come back as UNSUPPORTED.
+ */
+public class ServerReplayTarget implements ReplayTarget {
+    private static final String REJECTED_PREFIX = "Rejected:";
+
+    private final Socket socket;
+    private final BufferedReader reader;
+    private final Writer writer;
+    private long nextTag;
+
+    public ServerReplayTarget(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String execute(TraceRecord record) throws IOException {
+        String request = switch (record.getCall()) {
+            case DEPOSIT -> "DEPOSIT\t" + record.getAccountId() + "\t" + record.getAmount();
+            case WITHDRAW -> "WITHDRAW\t" + record.getAccountId() + "\t" + record.getAmount();
+            case TRANSFER -> "TRANSFER\t" + record.getAccountId() + "\t" + record.getRelatedAccountId()
+                    + "\t" + record.getAmount();
+            case CREATE_ACCOUNT -> "CREATE\t" + record.getAccountId() + "\t" + record.getHolderName()
+                    + "\t" + record.getEmail() + "\t" + record.getAmount() + "\t" + record.getMinThreshold();
+            case GET_BALANCE -> "BALANCE\t" + record.getAccountId();
+            case UPDATE_BALANCE, APPLY_BALANCE_DELTA -> null;
+        };
+        if (request == null) {
+            return UNSUPPORTED;
+        }
+
+        String tag = Long.toString(nextTag++);
+        writer.write(tag + "\t" + request + "\n");
+        writer.flush();
+
+        String response = reader.readLine();
+        if (response == null) {
+            throw new IOException("Server closed the connection");
+        }
+        String[] fields = response.split("\t", 4);
+        if (fields.length < 2 || !fields[0].equals(tag)) {
+            throw new IOException("Unexpected response: " + response);
+        }
+        if (fields[1].equals("OK")) {
+            return null;
+        }
+        String type = fields.length > 2 ? fields[2] : "ERR";
+        // The server reports admission rejections by reason; the capture saw the exception type.
+        return type.startsWith(REJECTED_PREFIX) ? "AdmissionRejectedException" : type;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
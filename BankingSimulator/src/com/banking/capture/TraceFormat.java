@@ -0,0 +1,82 @@
+package com.banking.capture;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Layout of a workload trace. After a header ({@code MAGIC}, {@code VERSION}, capture start in epoch
+ * millis, then the capture's own overhead: total nanos callers spent recording and the number of
+ * calls that waited for a full ring, both {@code UNKNOWN} unless the capture was closed cleanly;
+ * version 1 traces have no overhead fields) the file is a sequence of tagged records:
+ *
+ * <pre>
+ *   STRING  utf                       defines the next string id (ids start at 1, 0 is null)
+ *   CALL    code startDelta duration outcome args...
+ * </pre>
+ *
+ * Integers are LEB128 varints; the start is a zigzag delta from the previous call because calls
+ * from different threads can complete out of start order. The outcome is the string id of the
+ * exception's simple class name, 0 for success. Amounts that are whole cents are written as a
+ * varint of the cents, anything else as a raw double.
+ */
+final class TraceFormat {
+    static final int MAGIC = 0x4254_5243;
+    static final short VERSION = 2;
+    static final short VERSION_WITHOUT_OVERHEAD = 1;
+    static final long OVERHEAD_OFFSET = Integer.BYTES + Short.BYTES + Long.BYTES;
+    static final long UNKNOWN = -1;
+    static final int STRING = 1;
+    static final int CALL = 2;
+
+    private static final double MAX_CENTS_AMOUNT = 1e13;
+
+    private TraceFormat() {
+    }
+
+    static void writeVarint(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarint(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt trace: varint longer than 64 bits");
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeAmount(DataOutput out, double amount) throws IOException {
+        long cents = Math.round(amount * 100);
+        if (Math.abs(amount) < MAX_CENTS_AMOUNT && cents / 100.0 == amount) {
+            writeVarint(out, zigzag(cents) << 1);
+        } else {
+            writeVarint(out, 1);
+            out.writeDouble(amount);
+        }
+    }
+
+    static double readAmount(DataInput in) throws IOException {
+        long encoded = readVarint(in);
+        if ((encoded & 1) != 0) {
+            return in.readDouble();
+        }
+        return unzigzag(encoded >>> 1) / 100.0;
+    }
+}
@@ -0,0 +1,43 @@
+package com.banking.capture;
+
+/**
+ * One captured call as read back from a trace. The start is relative to the capture start; fields
+ * the call does not carry are null or zero.
+ */
+public class TraceRecord {
+    private final TracedCall call;
+    private final long startNanos;
+    private final long durationNanos;
+    private final String outcome;
+    private final String accountId;
+    private final String relatedAccountId;
+    private final String holderName;
+    private final String email;
+    private final double amount;
+    private final double minThreshold;
+
+    TraceRecord(TracedCall call, long startNanos, long durationNanos, String outcome, String accountId,
+                String relatedAccountId, String holderName, String email, double amount, double minThreshold) {
+        this.call = call;
+        this.startNanos = startNanos;
+        this.durationNanos = durationNanos;
+        this.outcome = outcome;
+        this.accountId = accountId;
+        this.relatedAccountId = relatedAccountId;
+        this.holderName = holderName;
+        this.email = email;
+        this.amount = amount;
+        this.minThreshold = minThreshold;
+    }
+
+    public TracedCall getCall() { return call; }
+    public long getStartNanos() { return startNanos; }
+    public long getDurationNanos() { return durationNanos; }
+    public String getOutcome() { return outcome; }
+    public String getAccountId() { return accountId; }
+    public String getRelatedAccountId() { return relatedAccountId; }
+    public String getHolderName() { return holderName; }
+    public String getEmail() { return email; }
+    public double getAmount() { return amount; }
+    public double getMinThreshold() { return minThreshold; }
+}
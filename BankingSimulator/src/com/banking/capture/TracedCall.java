@@ -0,0 +1,45 @@
+package com.banking.capture;
+
+/**
+ * Entry points recorded in a workload trace. Calls the services make on each other while serving
+ * one of these (cache updates, ledger writes) are part of that call and are not recorded again.
+ */
+public enum TracedCall {
+    DEPOSIT(1, false, true),
+    WITHDRAW(2, false, true),
+    TRANSFER(3, true, true),
+    CREATE_ACCOUNT(4, false, true),
+    UPDATE_BALANCE(5, false, true),
+    APPLY_BALANCE_DELTA(6, false, true),
+    GET_BALANCE(7, false, false);
+
+    private static final TracedCall[] BY_CODE = new TracedCall[8];
+
+    static {
+        for (TracedCall call : values()) {
+            BY_CODE[call.code] = call;
+        }
+    }
+
+    private final int code;
+    private final boolean relatedAccount;
+    private final boolean amount;
+
+    TracedCall(int code, boolean relatedAccount, boolean amount) {
+        this.code = code;
+        this.relatedAccount = relatedAccount;
+        this.amount = amount;
+    }
+
+    int getCode() { return code; }
+    boolean hasRelatedAccount() { return relatedAccount; }
+    boolean hasAmount() { return amount; }
+
+    static TracedCall fromCode(int code) {
+        TracedCall call = code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (call == null) {
+            throw new IllegalArgumentException("Unknown call code in trace: " + code);
+        }
+        return call;
+    }
+}
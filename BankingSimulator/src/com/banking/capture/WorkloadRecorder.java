@@ -0,0 +1,308 @@
+package com.banking.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes every call into {@code TransactionProcessor} and {@code AccountManager} to a compact binary
+ * trace (see {@link TraceFormat}) that {@link WorkloadReplayer} can drive against any backend.
+ * Capture is on when the {@code banking.capture.file} system property names the output file; the
+ * trace then holds account ids, holder names and emails, so treat it like a database export.
+ *
+ * Callers never take a lock or touch the file: each call claims a slot of a preallocated ring with
+ * one atomic increment, fills it and publishes it, and a single writer thread encodes the slots in
+ * claim order. Only a full ring makes a caller wait. The time callers spent recording and the
+ * number of calls that had to wait are written into the trace header when the capture closes.
+ */
+public class WorkloadRecorder implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int RING_SIZE = 1 << 14;
+    private static final int RING_MASK = RING_SIZE - 1;
+    private static final long IDLE_PARK_NANOS = 100_000;
+    private static final long FULL_PARK_NANOS = 10_000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+    // A caller that gave up on a full ring while closing leaves its slot unpublished for good.
+    private static final int MAX_IDLE_ROUNDS_WHILE_CLOSING = 1_000;
+    private static final WorkloadRecorder ACTIVE = openFromSystemProperty();
+
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final long baseNanos;
+    private final Slot[] ring = new Slot[RING_SIZE];
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder overheadNanos = new LongAdder();
+    private final LongAdder stalledCalls = new LongAdder();
+    private final Thread writer;
+    private volatile long drained;
+    private volatile boolean closing;
+    private volatile boolean failed;
+    private volatile long calls;
+
+    // Touched only by the writer thread.
+    private final Map<String, Integer> strings = new HashMap<>();
+    private long lastStartNanos;
+
+    public WorkloadRecorder(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream stream = Channels.newOutputStream(channel);
+        this.out = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE));
+        this.baseNanos = System.nanoTime();
+        out.writeInt(TraceFormat.MAGIC);
+        out.writeShort(TraceFormat.VERSION);
+        out.writeLong(System.currentTimeMillis());
+        out.writeLong(TraceFormat.UNKNOWN);
+        out.writeLong(TraceFormat.UNKNOWN);
+
+        for (int i = 0; i < RING_SIZE; i++) {
+            ring[i] = new Slot(i - RING_SIZE);
+        }
+        this.writer = new Thread(this::drain, "workload-capture-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Null unless capture was requested; callers check before taking timestamps.
+    public static WorkloadRecorder active() {
+        return ACTIVE;
+    }
+
+    private static WorkloadRecorder openFromSystemProperty() {
+        String file = System.getProperty("banking.capture.file");
+        if (file == null || file.isBlank()) {
+            return null;
+        }
+        try {
+            WorkloadRecorder recorder = new WorkloadRecorder(Path.of(file));
+            Runtime.getRuntime().addShutdownHook(new Thread(recorder::close, "workload-capture-close"));
+            System.out.println("Capturing workload to " + file);
+            return recorder;
+        } catch (IOException e) {
+            System.err.println("Workload capture disabled, cannot open " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void record(TracedCall call, long startNanos, long endNanos, Throwable failure,
+                       String accountId, String relatedAccountId, double amount) {
+        Slot slot = claim();
+        if (slot == null) {
+            return;
+        }
+        slot.call = call;
+        slot.startNanos = startNanos;
+        slot.endNanos = endNanos;
+        slot.failure = failure != null ? failure.getClass() : null;
+        slot.accountId = accountId;
+        slot.relatedAccountId = relatedAccountId;
+        slot.amount = amount;
+        publish(slot, endNanos);
+    }
+
+    public void recordAccountCreation(long startNanos, long endNanos, Throwable failure,
+                                      String accountId, String holderName, String email,
+                                      double initialBalance, double minThreshold) {
+        Slot slot = claim();
+        if (slot == null) {
+            return;
+        }
+        slot.call = TracedCall.CREATE_ACCOUNT;
+        slot.startNanos = startNanos;
+        slot.endNanos = endNanos;
+        slot.failure = failure != null ? failure.getClass() : null;
+        slot.accountId = accountId;
+        slot.holderName = holderName;
+        slot.email = email;
+        slot.amount = initialBalance;
+        slot.minThreshold = minThreshold;
+        publish(slot, endNanos);
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    @Override
+    public void close() {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            System.err.println("Workload capture writer did not finish, trace may be truncated");
+            return;
+        }
+        if (failed) {
+            return;
+        }
+        try {
+            out.flush();
+            ByteBuffer overhead = ByteBuffer.allocate(2 * Long.BYTES)
+                    .putLong(overheadNanos.sum())
+                    .putLong(stalledCalls.sum())
+                    .flip();
+            channel.write(overhead, TraceFormat.OVERHEAD_OFFSET);
+            out.close();
+            System.out.printf("Workload capture closed after %d calls; recording cost callers %.1f ms, "
+                    + "%d calls waited for a full ring%n", calls, overheadNanos.sum() / 1e6, stalledCalls.sum());
+        } catch (IOException e) {
+            System.err.println("Error closing workload capture: " + e.getMessage());
+        }
+    }
+
+    // Returns null once the capture is closing; the call is then not recorded.
+    private Slot claim() {
+        if (closing) {
+            return null;
+        }
+        long sequence = claimed.getAndIncrement();
+        if (sequence - drained >= RING_SIZE) {
+            stalledCalls.increment();
+            while (sequence - drained >= RING_SIZE) {
+                if (closing) {
+                    return null;
+                }
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+        }
+        Slot slot = ring[(int) (sequence & RING_MASK)];
+        slot.claimedSequence = sequence;
+        return slot;
+    }
+
+    private void publish(Slot slot, long endNanos) {
+        slot.published = slot.claimedSequence;
+        overheadNanos.add(System.nanoTime() - endNanos);
+    }
+
+    private void drain() {
+        long next = 0;
+        int idleRoundsWhileClosing = 0;
+        try {
+            while (true) {
+                Slot slot = ring[(int) (next & RING_MASK)];
+                if (slot.published != next) {
+                    if (closing && (next >= claimed.get()
+                            || ++idleRoundsWhileClosing > MAX_IDLE_ROUNDS_WHILE_CLOSING)) {
+                        break;
+                    }
+                    out.flush();
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                write(slot);
+                slot.clear();
+                next++;
+                drained = next;
+                calls = next;
+            }
+        } catch (IOException e) {
+            // A broken trace is worse than none, but it must never fail the calls being captured.
+            System.err.println("Workload capture stopped: " + e.getMessage());
+            failed = true;
+            closing = true;
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void write(Slot slot) throws IOException {
+        // String definitions have to precede the call that first uses them.
+        int outcome = slot.failure == null ? 0 : stringId(slot.failure.getSimpleName());
+        int account = stringId(slot.accountId);
+        if (slot.call == TracedCall.CREATE_ACCOUNT) {
+            int holder = stringId(slot.holderName);
+            int mail = stringId(slot.email);
+            writeCall(slot, outcome);
+            TraceFormat.writeVarint(out, account);
+            TraceFormat.writeVarint(out, holder);
+            TraceFormat.writeVarint(out, mail);
+            TraceFormat.writeAmount(out, slot.amount);
+            TraceFormat.writeAmount(out, slot.minThreshold);
+            return;
+        }
+
+        int related = slot.call.hasRelatedAccount() ? stringId(slot.relatedAccountId) : 0;
+        writeCall(slot, outcome);
+        TraceFormat.writeVarint(out, account);
+        if (slot.call.hasRelatedAccount()) {
+            TraceFormat.writeVarint(out, related);
+        }
+        if (slot.call.hasAmount()) {
+            TraceFormat.writeAmount(out, slot.amount);
+        }
+    }
+
+    private void writeCall(Slot slot, int outcome) throws IOException {
+        long start = slot.startNanos - baseNanos;
+        out.writeByte(TraceFormat.CALL);
+        out.writeByte(slot.call.getCode());
+        TraceFormat.writeVarint(out, TraceFormat.zigzag(start - lastStartNanos));
+        TraceFormat.writeVarint(out, Math.max(0, slot.endNanos - slot.startNanos));
+        TraceFormat.writeVarint(out, outcome);
+        lastStartNanos = start;
+    }
+
+    private int stringId(String value) throws IOException {
+        if (value == null) {
+            return 0;
+        }
+        Integer id = strings.get(value);
+        if (id == null) {
+            id = strings.size() + 1;
+            strings.put(value, id);
+            out.writeByte(TraceFormat.STRING);
+            out.writeUTF(value);
+        }
+        return id;
+    }
+
+    // Plain fields are written by the claiming caller before the volatile publish and read by the
+    // writer after it observes that publish.
+    private static final class Slot {
+        private volatile long published;
+        private long claimedSequence;
+        private TracedCall call;
+        private long startNanos;
+        private long endNanos;
+        private Class<?> failure;
+        private String accountId;
+        private String relatedAccountId;
+        private String holderName;
+        private String email;
+        private double amount;
+        private double minThreshold;
+
+        Slot(long published) {
+            this.published = published;
+        }
+
+        void clear() {
+            failure = null;
+            accountId = null;
+            relatedAccountId = null;
+            holderName = null;
+            email = null;
+        }
+    }
+}
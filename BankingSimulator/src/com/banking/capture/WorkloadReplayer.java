@@ -0,0 +1,301 @@
+package com.banking.capture;
+
+import com.banking.database.DatabaseConnection;
+import com.banking.monitoring.LatencyHistogram;
+import com.banking.service.AccountManager;
+import com.banking.service.BalanceAlertTracker;
+import com.banking.service.EmailService;
+import com.banking.service.TransactionProcessor;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a captured trace against a backend at the original pace, scaled by a speed factor, or as
+ * fast as possible. Calls are spread over lanes by account id and each lane runs its calls in trace
+ * order, so with one lane (the default) a replay is fully deterministic; with more lanes only the
+ * order per account is kept. A transfer between accounts of different lanes runs on the source
+ * account's lane once the destination's lane has caught up with it, and that lane waits until the
+ * transfer is done, so both accounts see it in trace order. The backend should start from the state
+ * the capture started from, otherwise outcomes diverge from the captured ones.
+ *
+ * A call that throws counts as an outcome of that exception's class. An {@code Error} on a lane
+ * cancels the replay: the remaining calls are skipped and {@link #replay} rethrows it.
+ *
+ * Latency is reported twice: service time from the moment a call was issued, and response time
+ * from the moment the trace says it should have been issued, which includes any queueing behind a
+ * slow earlier call.
+ * Usage: WorkloadReplayer trace.bin [--speed N | --max] [--lanes N] [--server host:port]
+ */
+public class WorkloadReplayer {
+    private static final int LANE_QUEUE_SIZE = 4096;
+    private static final Step END = new Step(null, null, false);
+
+    private final ReplayTarget.Factory targets;
+    private final double speed;
+    private final int lanes;
+
+    // A speed of 0 replays as fast as possible.
+    public WorkloadReplayer(ReplayTarget.Factory targets, double speed, int lanes) {
+        if (speed < 0 || lanes < 1) {
+            throw new IllegalArgumentException("Speed must not be negative and lanes must be positive");
+        }
+        this.targets = targets;
+        this.speed = speed;
+        this.lanes = lanes;
+    }
+
+    public Report replay(Path trace) throws IOException, InterruptedException {
+        Report report = new Report();
+        report.replayOriginNanos = System.nanoTime();
+        List<Lane> running = new ArrayList<>();
+        try (WorkloadTraceReader reader = new WorkloadTraceReader(trace)) {
+            for (int i = 0; i < lanes; i++) {
+                Lane lane = new Lane(targets.open(), report);
+                running.add(lane);
+                lane.thread.start();
+            }
+
+            TraceRecord record = reader.next();
+            if (record != null) {
+                report.traceOriginNanos = record.getStartNanos();
+                report.replayOriginNanos = System.nanoTime();
+            }
+            for (; record != null && report.failure == null; record = reader.next()) {
+                int lane = laneOf(record.getAccountId());
+                int relatedLane = record.getCall() == TracedCall.TRANSFER ? laneOf(record.getRelatedAccountId()) : lane;
+                if (relatedLane == lane) {
+                    running.get(lane).queue.put(new Step(record, null, false));
+                } else {
+                    CrossLane crossLane = new CrossLane();
+                    running.get(relatedLane).queue.put(new Step(null, crossLane, true));
+                    running.get(lane).queue.put(new Step(record, crossLane, false));
+                }
+            }
+            report.truncated = reader.isTruncated();
+        } finally {
+            for (Lane lane : running) {
+                lane.queue.put(END);
+            }
+            for (Lane lane : running) {
+                lane.thread.join();
+                lane.target.close();
+            }
+        }
+        report.elapsedNanos = System.nanoTime() - report.replayOriginNanos;
+        if (report.failure instanceof Error error) {
+            throw error;
+        }
+        if (report.failure instanceof InterruptedException) {
+            throw new InterruptedException("A replay lane was interrupted");
+        }
+        return report;
+    }
+
+    private int laneOf(String accountId) {
+        return accountId == null ? 0 : Math.floorMod(accountId.hashCode(), lanes);
+    }
+
+    // A call for one lane, or a hold that parks the related account's lane while a transfer runs.
+    private static final class Step {
+        private final TraceRecord record;
+        private final CrossLane crossLane;
+        private final boolean hold;
+
+        Step(TraceRecord record, CrossLane crossLane, boolean hold) {
+            this.record = record;
+            this.crossLane = crossLane;
+            this.hold = hold;
+        }
+    }
+
+    // Both lanes reach a cross-lane step in trace order, so waiting on one can never form a cycle.
+    private static final class CrossLane {
+        private final CountDownLatch held = new CountDownLatch(1);
+        private final CountDownLatch done = new CountDownLatch(1);
+    }
+
+    private final class Lane implements Runnable {
+        private final BlockingQueue<Step> queue = new ArrayBlockingQueue<>(LANE_QUEUE_SIZE);
+        private final ReplayTarget target;
+        private final Report report;
+        private final Thread thread;
+
+        Lane(ReplayTarget target, Report report) {
+            this.target = target;
+            this.report = report;
+            this.thread = new Thread(this, "replay-lane");
+        }
+
+        // Keeps taking steps after a failure so the reader never blocks on a full queue and the
+        // other lanes are never left waiting on a cross-lane step.
+        @Override
+        public void run() {
+            try {
+                Step step;
+                while ((step = queue.take()) != END) {
+                    if (step.hold) {
+                        step.crossLane.held.countDown();
+                        if (report.failure == null) {
+                            step.crossLane.done.await();
+                        }
+                        continue;
+                    }
+                    try {
+                        if (report.failure == null) {
+                            execute(step);
+                        }
+                    } catch (Error e) {
+                        report.failure = e;
+                    } finally {
+                        if (step.crossLane != null) {
+                            step.crossLane.done.countDown();
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                report.failure = e;
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void execute(Step step) throws InterruptedException {
+            TraceRecord record = step.record;
+            long scheduled = speed == 0 ? System.nanoTime()
+                    : report.replayOriginNanos + (long) ((record.getStartNanos() - report.traceOriginNanos) / speed);
+            waitUntil(scheduled);
+            if (step.crossLane != null) {
+                step.crossLane.held.await();
+            }
+
+            long start = System.nanoTime();
+            String outcome;
+            try {
+                outcome = target.execute(record);
+            } catch (IOException | RuntimeException e) {
+                outcome = e.getClass().getSimpleName();
+            }
+            report.record(record, outcome, scheduled, start, System.nanoTime());
+        }
+
+        private void waitUntil(long deadline) {
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    }
+
+    public static final class Report {
+        private final Map<TracedCall, LatencyHistogram> serviceTimes = new EnumMap<>(TracedCall.class);
+        private final Map<TracedCall, LatencyHistogram> capturedTimes = new EnumMap<>(TracedCall.class);
+        private final LatencyHistogram responseTimes = new LatencyHistogram();
+        private final LongAdder replayed = new LongAdder();
+        private final LongAdder unsupported = new LongAdder();
+        private final LongAdder diverged = new LongAdder();
+        private volatile long traceOriginNanos;
+        private volatile long replayOriginNanos;
+        private volatile Throwable failure;
+        private long elapsedNanos;
+        private boolean truncated;
+
+        private Report() {
+            // Filled up front so lanes only ever read the maps.
+            for (TracedCall call : TracedCall.values()) {
+                serviceTimes.put(call, new LatencyHistogram());
+                capturedTimes.put(call, new LatencyHistogram());
+            }
+        }
+
+        private void record(TraceRecord record, String outcome, long scheduled, long start, long end) {
+            if (ReplayTarget.UNSUPPORTED.equals(outcome)) {
+                unsupported.increment();
+                return;
+            }
+            replayed.increment();
+            serviceTimes.get(record.getCall()).record(end - start);
+            capturedTimes.get(record.getCall()).record(record.getDurationNanos());
+            responseTimes.record(end - scheduled);
+            if (outcome == null ? record.getOutcome() != null : !outcome.equals(record.getOutcome())) {
+                diverged.increment();
+            }
+        }
+
+        public long getReplayed() { return replayed.sum(); }
+        public long getUnsupported() { return unsupported.sum(); }
+        public long getDiverged() { return diverged.sum(); }
+        public long getElapsedNanos() { return elapsedNanos; }
+        public boolean isTruncated() { return truncated; }
+        public LatencyHistogram getServiceTime(TracedCall call) { return serviceTimes.get(call); }
+        public LatencyHistogram getResponseTime() { return responseTimes; }
+
+        public void print(PrintStream out) {
+            double seconds = elapsedNanos / 1e9;
+            out.printf("Replayed %,d calls in %.2f s (%,.0f calls/s), %,d unsupported, %,d with a different outcome%s%n",
+                    getReplayed(), seconds, seconds > 0 ? getReplayed() / seconds : 0, getUnsupported(),
+                    getDiverged(), truncated ? ", trace was truncated" : "");
+            out.println();
+            for (TracedCall call : TracedCall.values()) {
+                if (serviceTimes.get(call).getCount() == 0) {
+                    continue;
+                }
+                capturedTimes.get(call).print(out, call + " captured");
+                serviceTimes.get(call).print(out, call + " replayed");
+                out.println();
+            }
+            responseTimes.print(out, "Response time from schedule");
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println("Usage: WorkloadReplayer <trace> [--speed N | --max] [--lanes N] [--server host:port]");
+            System.exit(2);
+        }
+        Path trace = Path.of(args[0]);
+        double speed = 1.0;
+        int lanes = 1;
+        String server = null;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--max")) {
+                speed = 0;
+            } else if (args[i].equals("--speed") && i + 1 < args.length) {
+                speed = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--lanes") && i + 1 < args.length) {
+                lanes = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--server") && i + 1 < args.length) {
+                server = args[++i];
+            }
+        }
+
+        ReplayTarget.Factory targets;
+        if (server != null) {
+            int colon = server.lastIndexOf(':');
+            String host = server.substring(0, colon);
+            int port = Integer.parseInt(server.substring(colon + 1));
+            targets = () -> new ServerReplayTarget(host, port);
+        } else {
+            DatabaseConnection.initializeDatabase();
+            AccountManager accountManager = new AccountManager();
+            BalanceAlertTracker alertTracker = new BalanceAlertTracker(accountManager, new EmailService());
+            TransactionProcessor transactionProcessor = new TransactionProcessor(accountManager, alertTracker);
+            transactionProcessor.setConsoleOutput(false);
+            LocalReplayTarget local = new LocalReplayTarget(accountManager, transactionProcessor);
+            targets = () -> local;
+        }
+
+        Report report = new WorkloadReplayer(targets, speed, lanes).replay(trace);
+        report.print(System.out);
+        System.exit(0);
+    }
+}
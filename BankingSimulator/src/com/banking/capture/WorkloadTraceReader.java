@@ -0,0 +1,112 @@
+package com.banking.capture;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sequential reader for traces written by {@link WorkloadRecorder}. A capture cut off by a crash
+ * ends in a partial record; reading stops cleanly before it and {@link #isTruncated()} says so.
+ */
+public class WorkloadTraceReader implements AutoCloseable {
+    private final DataInputStream in;
+    private final long capturedAtMillis;
+    private final long captureOverheadNanos;
+    private final long stalledCalls;
+    private final List<String> strings = new ArrayList<>();
+    private long startNanos;
+    private boolean truncated;
+
+    public WorkloadTraceReader(Path file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024));
+        try {
+            int magic = in.readInt();
+            short version = in.readShort();
+            if (magic != TraceFormat.MAGIC
+                    || (version != TraceFormat.VERSION && version != TraceFormat.VERSION_WITHOUT_OVERHEAD)) {
+                throw new IOException("Not a workload trace: " + file);
+            }
+            this.capturedAtMillis = in.readLong();
+            boolean hasOverhead = version != TraceFormat.VERSION_WITHOUT_OVERHEAD;
+            this.captureOverheadNanos = hasOverhead ? in.readLong() : TraceFormat.UNKNOWN;
+            this.stalledCalls = hasOverhead ? in.readLong() : TraceFormat.UNKNOWN;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        strings.add(null);
+    }
+
+    public long getCapturedAtMillis() { return capturedAtMillis; }
+    // Both are -1 when the trace does not say, e.g. after a crash or for version 1 traces.
+    public long getCaptureOverheadNanos() { return captureOverheadNanos; }
+    public long getStalledCalls() { return stalledCalls; }
+    public boolean isTruncated() { return truncated; }
+
+    // Returns null at the end of the trace.
+    public TraceRecord next() throws IOException {
+        try {
+            while (true) {
+                int tag = in.read();
+                if (tag < 0) {
+                    return null;
+                }
+                if (tag == TraceFormat.STRING) {
+                    strings.add(in.readUTF());
+                } else if (tag == TraceFormat.CALL) {
+                    return readCall();
+                } else {
+                    throw new IOException("Corrupt trace: unknown record tag " + tag);
+                }
+            }
+        } catch (EOFException e) {
+            truncated = true;
+            return null;
+        }
+    }
+
+    private TraceRecord readCall() throws IOException {
+        TracedCall call;
+        try {
+            call = TracedCall.fromCode(in.readUnsignedByte());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt trace: " + e.getMessage(), e);
+        }
+        startNanos += TraceFormat.unzigzag(TraceFormat.readVarint(in));
+        long durationNanos = TraceFormat.readVarint(in);
+        String outcome = string();
+        String accountId = string();
+
+        if (call == TracedCall.CREATE_ACCOUNT) {
+            String holderName = string();
+            String email = string();
+            double initialBalance = TraceFormat.readAmount(in);
+            double minThreshold = TraceFormat.readAmount(in);
+            return new TraceRecord(call, startNanos, durationNanos, outcome, accountId, null, holderName, email,
+                    initialBalance, minThreshold);
+        }
+
+        String relatedAccountId = call.hasRelatedAccount() ? string() : null;
+        double amount = call.hasAmount() ? TraceFormat.readAmount(in) : 0;
+        return new TraceRecord(call, startNanos, durationNanos, outcome, accountId, relatedAccountId, null, null,
+                amount, 0);
+    }
+
+    private String string() throws IOException {
+        long id = TraceFormat.readVarint(in);
+        if (id >= strings.size()) {
+            throw new IOException("Corrupt trace: string " + id + " used before it was defined");
+        }
+        return strings.get((int) id);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
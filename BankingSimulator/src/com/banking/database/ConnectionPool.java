@@ -0,0 +1,164 @@
+package com.banking.database;
+
+import com.banking.monitoring.ConnectionAcquireEvent;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of physical connections. Every connection keeps the fixed statements of its
+ * route prepared server-side for as long as it lives, so postings skip the parse and plan step.
+ */
+public class ConnectionPool {
+    private static final long IDLE_VALIDATION_MILLIS = 30_000;
+    private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final String name;
+    private final String url;
+    private final Properties properties;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final SqlStatement.Route route;
+    private final BlockingQueue<PooledConnection> idle;
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+
+    public ConnectionPool(String name, String url, String user, String password, int maxSize,
+                          long borrowTimeoutMillis, SqlStatement.Route route) {
+        this.name = name;
+        this.url = url;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.route = route;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+
+        this.properties = new Properties();
+        properties.setProperty("user", user);
+        properties.setProperty("password", password);
+        properties.setProperty("useServerPrepStmts", "true");
+        properties.setProperty("cachePrepStmts", "true");
+        properties.setProperty("prepStmtCacheSize", "64");
+        properties.setProperty("prepStmtCacheSqlLimit", "2048");
+        properties.setProperty("rewriteBatchedStatements", "true");
+    }
+
+    public PooledConnection borrow() throws SQLException {
+        ConnectionAcquireEvent event = new ConnectionAcquireEvent(name);
+        event.begin();
+        SQLException failure = null;
+        try {
+            return acquire();
+        } catch (SQLException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.record(failure);
+            }
+        }
+    }
+
+    private PooledConnection acquire() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        PooledConnection pooled;
+        while (true) {
+            pooled = idle.poll();
+            if (pooled == null) {
+                pooled = tryCreate();
+            }
+            if (pooled != null) {
+                break;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new SQLException("Timed out waiting for a " + name + " connection");
+            }
+            try {
+                pooled = idle.poll(Math.min(remaining, WAIT_SLICE_NANOS), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for a " + name + " connection", e);
+            }
+            if (pooled != null) {
+                break;
+            }
+        }
+
+        if (System.currentTimeMillis() - pooled.getLastUsedMillis() > IDLE_VALIDATION_MILLIS
+                && !pooled.getConnection().isValid(2)) {
+            discard(pooled);
+            return acquire();
+        }
+        return pooled;
+    }
+
+    void release(PooledConnection pooled) {
+        if (!pooled.isReusable()) {
+            discard(pooled);
+            return;
+        }
+        pooled.touch();
+        if (!idle.offer(pooled)) {
+            discard(pooled);
+        }
+    }
+
+    void recordHit() { statementHits.increment(); }
+    void recordMiss() { statementMisses.increment(); }
+
+    public long getStatementHits() { return statementHits.sum(); }
+    public long getStatementMisses() { return statementMisses.sum(); }
+    public int getSize() { return size.get(); }
+    public int getIdleCount() { return idle.size(); }
+
+    public void close() {
+        PooledConnection pooled;
+        while ((pooled = idle.poll()) != null) {
+            discard(pooled);
+        }
+    }
+
+    private PooledConnection tryCreate() throws SQLException {
+        while (true) {
+            int current = size.get();
+            if (current >= maxSize) {
+                return null;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection(url, properties);
+            PooledConnection pooled = new PooledConnection(this, connection);
+            for (SqlStatement statement : SqlStatement.values()) {
+                if (statement.getRoute() == route) {
+                    pooled.prepare(statement);
+                }
+            }
+            return pooled;
+        } catch (SQLException e) {
+            size.decrementAndGet();
+            if (connection != null) {
+                connection.close();
+            }
+            throw e;
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        size.decrementAndGet();
+        pooled.closePhysical();
+    }
+}
@@ -1,54 +1,276 @@
-
-package com.banking.database;
-
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
-import java.sql.Statement;
-
-public class DatabaseConnection {
-    // TODO: UPDATE THESE WITH YOUR MYSQL CREDENTIALS
-    private static final String URL = "jdbc:mysql://localhost:3306/banking_system";
-    private static final String USER = "root";
-    private static final String PASSWORD = "Selva@123";  // CHANGE THIS!
-
-    public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
-    }
-
-    public static void initializeDatabase() {
-        String createAccountsTable = """
-            CREATE TABLE IF NOT EXISTS accounts (
-                account_id VARCHAR(20) PRIMARY KEY,
-                account_holder_name VARCHAR(100) NOT NULL,
-                email VARCHAR(100) NOT NULL,
-                balance DECIMAL(15, 2) NOT NULL,
-                min_balance_threshold DECIMAL(15, 2) DEFAULT 1000.00,
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-            )
-        """;
-
-        String createTransactionsTable = """
-            CREATE TABLE IF NOT EXISTS transactions (
-                transaction_id INT AUTO_INCREMENT PRIMARY KEY,
-                account_id VARCHAR(20) NOT NULL,
-                transaction_type VARCHAR(20) NOT NULL,
-                amount DECIMAL(15, 2) NOT NULL,
-                related_account_id VARCHAR(20),
-                timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                status VARCHAR(20) NOT NULL,
-                remarks TEXT,
-                FOREIGN KEY (account_id) REFERENCES accounts(account_id)
-            )
-        """;
-
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(createAccountsTable);
-            stmt.execute(createTransactionsTable);
-            System.out.println("Database tables initialized successfully.");
-        } catch (SQLException e) {
-            System.err.println("Error initializing database: " + e.getMessage());
-        }
-    }
+
+package com.banking.database;
+
+import com.banking.model.TransactionRemark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DatabaseConnection {
+    // TODO: UPDATE THESE WITH YOUR MYSQL CREDENTIALS
+    private static final String URL = "jdbc:mysql://localhost:3306/banking_system";
+    private static final String USER = "root";
+    private static final String PASSWORD = "Selva@123";  // CHANGE THIS!
+
+    // Reporting and history reads go to the reader when one is configured, e.g.
+    // -Dbanking.db.read.url=jdbc:mysql://replica-host:3306/banking_system
+    private static final String READ_URL = System.getProperty("banking.db.read.url");
+    private static final String READ_USER = System.getProperty("banking.db.read.user", USER);
+    private static final String READ_PASSWORD = System.getProperty("banking.db.read.password", PASSWORD);
+    private static final long MAX_READ_STALENESS_MILLIS = Long.getLong("banking.db.read.maxStalenessMillis", 5000);
+    private static final long LAG_CHECK_INTERVAL_MILLIS = Long.getLong("banking.db.read.lagCheckMillis", 1000);
+
+    private static final int POOL_SIZE = Integer.getInteger("banking.db.pool.size", 32);
+    private static final long POOL_TIMEOUT_MILLIS = Long.getLong("banking.db.pool.timeoutMillis", 30_000);
+    private static final ConnectionPool writePool = new ConnectionPool("writer", URL, USER, PASSWORD,
+            POOL_SIZE, POOL_TIMEOUT_MILLIS, SqlStatement.Route.WRITE);
+    private static final ConnectionPool readPool = READ_URL == null ? null
+            : new ConnectionPool("reader", READ_URL, READ_USER, READ_PASSWORD,
+                    POOL_SIZE, POOL_TIMEOUT_MILLIS, SqlStatement.Route.READ);
+
+    private static final int STREAMING_FETCH_SIZE = Integer.getInteger("banking.db.streaming.fetchSize", 1000);
+
+    private static final Map<String, AtomicLong> lastWriteMillis = new ConcurrentHashMap<>();
+    private static volatile long replicaLagMillis = Long.MAX_VALUE;
+    private static volatile long lagCheckedAtMillis;
+
+    public static Connection getConnection() throws SQLException {
+        return DriverManager.getConnection(URL, USER, PASSWORD);
+    }
+
+    // Separate from the pools: long scans hold server-side cursors open, so several result sets can
+    // be streamed side by side inside one transaction without buffering them in memory.
+    public static Connection openStreamingConnection() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", USER);
+        properties.setProperty("password", PASSWORD);
+        properties.setProperty("useCursorFetch", "true");
+        properties.setProperty("defaultFetchSize", String.valueOf(STREAMING_FETCH_SIZE));
+        return DriverManager.getConnection(URL, properties);
+    }
+
+    public static PooledConnection borrow() throws SQLException {
+        return writePool.borrow();
+    }
+
+    public static PooledConnection borrowReader() throws SQLException {
+        if (readPool == null || !isReaderFresh()) {
+            return borrow();
+        }
+        try {
+            return readPool.borrow();
+        } catch (SQLException e) {
+            markReaderStale();
+            System.err.println("Reader unavailable, routing reads to writer: " + e.getMessage());
+            return borrow();
+        }
+    }
+
+    // Read-your-writes: an account written to within the staleness bound may not be on the reader yet.
+    public static PooledConnection borrowReader(String accountId) throws SQLException {
+        AtomicLong writtenAt = lastWriteMillis.get(accountId);
+        if (writtenAt != null && System.currentTimeMillis() - writtenAt.get() <= MAX_READ_STALENESS_MILLIS) {
+            return borrow();
+        }
+        return borrowReader();
+    }
+
+    public static int getPoolSize() {
+        return POOL_SIZE;
+    }
+
+    public static long getStatementCacheHits() {
+        return writePool.getStatementHits() + (readPool != null ? readPool.getStatementHits() : 0);
+    }
+
+    public static long getStatementCacheMisses() {
+        return writePool.getStatementMisses() + (readPool != null ? readPool.getStatementMisses() : 0);
+    }
+
+    // Updates the account's existing timestamp in place so a posting does not box a Long.
+    public static void recordWrite(String accountId) {
+        AtomicLong writtenAt = lastWriteMillis.get(accountId);
+        if (writtenAt == null) {
+            writtenAt = lastWriteMillis.computeIfAbsent(accountId, id -> new AtomicLong());
+        }
+        writtenAt.set(System.currentTimeMillis());
+    }
+
+    private static boolean isReaderFresh() {
+        long now = System.currentTimeMillis();
+        if (now - lagCheckedAtMillis >= LAG_CHECK_INTERVAL_MILLIS) {
+            refreshReplicaLag(now);
+        }
+        return replicaLagMillis <= MAX_READ_STALENESS_MILLIS;
+    }
+
+    // Keeps reads on the writer until the next lag check finds the reader healthy again.
+    private static synchronized void markReaderStale() {
+        replicaLagMillis = Long.MAX_VALUE;
+        lagCheckedAtMillis = System.currentTimeMillis();
+    }
+
+    private static synchronized void refreshReplicaLag(long now) {
+        if (now - lagCheckedAtMillis < LAG_CHECK_INTERVAL_MILLIS) {
+            return;
+        }
+        lagCheckedAtMillis = now;
+
+        try (PooledConnection conn = readPool.borrow();
+             Statement stmt = conn.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SHOW REPLICA STATUS")) {
+
+            if (!rs.next()) {
+                // Not a replica (e.g. a second standalone instance used for local testing).
+                replicaLagMillis = 0;
+                return;
+            }
+            long seconds = rs.getLong("Seconds_Behind_Source");
+            replicaLagMillis = rs.wasNull() ? Long.MAX_VALUE : seconds * 1000;
+
+        } catch (SQLException e) {
+            replicaLagMillis = Long.MAX_VALUE;
+            System.err.println("Reader unavailable, routing reads to writer: " + e.getMessage());
+        }
+    }
+
+    public static void initializeDatabase() {
+        String createAccountsTable = """
+            CREATE TABLE IF NOT EXISTS accounts (
+                account_id VARCHAR(20) PRIMARY KEY,
+                account_holder_name VARCHAR(100) NOT NULL,
+                email VARCHAR(100) NOT NULL,
+                balance DECIMAL(15, 2) NOT NULL,
+                min_balance_threshold DECIMAL(15, 2) DEFAULT 1000.00,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+        """;
+
+        String createTransactionsTable = """
+            CREATE TABLE IF NOT EXISTS transactions (
+                transaction_id INT AUTO_INCREMENT PRIMARY KEY,
+                account_id VARCHAR(20) NOT NULL,
+                transaction_type VARCHAR(20) NOT NULL,
+                amount DECIMAL(15, 2) NOT NULL,
+                related_account_id VARCHAR(20),
+                timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                status VARCHAR(20) NOT NULL,
+                remarks TEXT,
+                FOREIGN KEY (account_id) REFERENCES accounts(account_id)
+            )
+        """;
+
+        // One row per committed end-of-day chunk, written in the same transaction as its postings.
+        String createBatchCheckpointsTable = """
+            CREATE TABLE IF NOT EXISTS batch_checkpoints (
+                run_date DATE NOT NULL,
+                chunk_start VARCHAR(20) NOT NULL,
+                chunk_end VARCHAR(20) NOT NULL,
+                accounts_processed INT NOT NULL,
+                completed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                PRIMARY KEY (run_date, chunk_start)
+            )
+        """;
+
+        // Manifest of published archive segments; file names are relative to the archive directory.
+        String createArchiveSegmentsTable = """
+            CREATE TABLE IF NOT EXISTS archive_segments (
+                segment_id INT AUTO_INCREMENT PRIMARY KEY,
+                file_name VARCHAR(255) NOT NULL UNIQUE,
+                range_key VARCHAR(20) NOT NULL,
+                segment_month CHAR(7) NOT NULL,
+                first_account_id VARCHAR(20) NOT NULL,
+                last_account_id VARCHAR(20) NOT NULL,
+                row_count INT NOT NULL,
+                min_transaction_id INT NOT NULL,
+                max_transaction_id INT NOT NULL,
+                min_timestamp DATETIME NOT NULL,
+                max_timestamp DATETIME NOT NULL,
+                sha256 CHAR(64) NOT NULL,
+                archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                INDEX idx_archive_segments_accounts (first_account_id, last_account_id)
+            )
+        """;
+
+        // Where each account's rows sit inside a segment, so history reads open only those segments
+        // and decompress only that account's part of each.
+        String createArchiveSegmentAccountsTable = """
+            CREATE TABLE IF NOT EXISTS archive_segment_accounts (
+                account_id VARCHAR(20) NOT NULL,
+                segment_id INT NOT NULL,
+                segment_month CHAR(7) NOT NULL,
+                byte_offset BIGINT NOT NULL,
+                byte_length INT NOT NULL,
+                row_count INT NOT NULL,
+                PRIMARY KEY (account_id, segment_id)
+            )
+        """;
+
+        // Per-day totals of archived rows, kept so balances stay provable after the rows leave the table.
+        String createDailySummariesTable = """
+            CREATE TABLE IF NOT EXISTS transaction_daily_summaries (
+                account_id VARCHAR(20) NOT NULL,
+                summary_date DATE NOT NULL,
+                transaction_type VARCHAR(20) NOT NULL,
+                status VARCHAR(20) NOT NULL,
+                entry_count INT NOT NULL,
+                total_amount DECIMAL(17, 2) NOT NULL,
+                PRIMARY KEY (account_id, summary_date, transaction_type, status)
+            )
+        """;
+
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(createAccountsTable);
+            stmt.execute(createTransactionsTable);
+            stmt.execute(createBatchCheckpointsTable);
+            stmt.execute(createArchiveSegmentsTable);
+            stmt.execute(createArchiveSegmentAccountsTable);
+            stmt.execute(createDailySummariesTable);
+            createIndexIfMissing(conn, "transactions", "idx_transactions_timestamp", "timestamp");
+            backfillOpeningEntries(conn);
+            System.out.println("Database tables initialized successfully.");
+        } catch (SQLException e) {
+            System.err.println("Error initializing database: " + e.getMessage());
+        }
+    }
+
+    // Runs on every start and only touches accounts that still lack an OPENING row, so it is safe to repeat.
+    private static void backfillOpeningEntries(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SqlStatement.BACKFILL_OPENING_ENTRIES.getSql())) {
+            pstmt.setString(1, TransactionRemark.OPENING_BALANCE.getText());
+            int inserted = pstmt.executeUpdate();
+            if (inserted > 0) {
+                System.out.println("Backfilled opening ledger entries for " + inserted + " accounts.");
+            }
+        }
+    }
+
+    // MySQL has no CREATE INDEX IF NOT EXISTS; the archival scan needs this one on existing tables too.
+    private static void createIndexIfMissing(Connection conn, String table, String index, String columns)
+            throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("""
+                SELECT 1 FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?
+                """)) {
+            pstmt.setString(1, table);
+            pstmt.setString(2, index);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.banking.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A physical connection leased from a {@link ConnectionPool}, together with the statements
+ * already prepared on it. Closing it hands the connection back to the pool.
+ */
+public class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Map<SqlStatement, PreparedStatement> statements = new EnumMap<>(SqlStatement.class);
+    private long lastUsedMillis;
+
+    PooledConnection(ConnectionPool pool, Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+        this.lastUsedMillis = System.currentTimeMillis();
+    }
+
+    public PreparedStatement prepare(SqlStatement statement) throws SQLException {
+        PreparedStatement pstmt = statements.get(statement);
+        if (pstmt != null) {
+            pool.recordHit();
+            pstmt.clearParameters();
+            return pstmt;
+        }
+        pool.recordMiss();
+        pstmt = connection.prepareStatement(statement.getSql());
+        statements.put(statement, pstmt);
+        return pstmt;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public void begin() throws SQLException {
+        connection.setAutoCommit(false);
+    }
+
+    public void commit() throws SQLException {
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    public void rollback() {
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            System.err.println("Error rolling back transaction: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    long getLastUsedMillis() { return lastUsedMillis; }
+    void touch() { lastUsedMillis = System.currentTimeMillis(); }
+
+    boolean isReusable() {
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                rollback();
+            }
+            return connection.getAutoCommit();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysical() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing connection: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.banking.database;
+
+public enum SqlStatement {
+    INSERT_ACCOUNT(Route.WRITE, """
+            INSERT INTO accounts (account_id, account_holder_name, email, balance, min_balance_threshold)
+            VALUES (?, ?, ?, ?, ?)
+            """),
+    UPDATE_BALANCE(Route.WRITE, "UPDATE accounts SET balance = ? WHERE account_id = ?"),
+    ADJUST_BALANCE(Route.WRITE, "UPDATE accounts SET balance = balance + ? WHERE account_id = ?"),
+    INSERT_TRANSACTION(Route.WRITE, """
+            INSERT INTO transactions (account_id, transaction_type, amount, related_account_id, status, remarks)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """),
+    // Postings store the epoch-nanos time the processor took right after placing the hold, not the insert time.
+    INSERT_POSTED_TRANSACTION(Route.WRITE, """
+            INSERT INTO transactions (account_id, transaction_type, amount, related_account_id, status, remarks,
+                                      timestamp)
+            VALUES (?, ?, ?, ?, ?, ?, FROM_UNIXTIME(? / 1000000000))
+            """),
+    SELECT_HISTORY(Route.READ, """
+            SELECT transaction_id, account_id, transaction_type, amount, related_account_id,
+                   timestamp, status, remarks
+            FROM transactions
+            WHERE account_id = ?
+            ORDER BY timestamp DESC
+            LIMIT ?
+            """),
+    SELECT_DAILY_TRANSACTIONS(Route.READ, """
+            SELECT t.transaction_id, t.account_id, a.account_holder_name,
+                   t.transaction_type, t.amount, t.timestamp, t.status, t.remarks
+            FROM transactions t
+            JOIN accounts a ON t.account_id = a.account_id
+            WHERE t.timestamp >= CURDATE() AND t.timestamp < CURDATE() + INTERVAL 1 DAY
+            ORDER BY t.timestamp DESC
+            """),
+    INSERT_BATCH_CHECKPOINT(Route.WRITE, """
+            INSERT INTO batch_checkpoints (run_date, chunk_start, chunk_end, accounts_processed)
+            VALUES (?, ?, ?, ?)
+            """),
+    // Session-level named lock; it goes away with the connection if the run dies.
+    ACQUIRE_BATCH_RUN_LOCK(Route.WRITE, "SELECT GET_LOCK(?, 0)"),
+    RELEASE_BATCH_RUN_LOCK(Route.WRITE, "SELECT RELEASE_LOCK(?)"),
+    SELECT_BATCH_CHECKPOINTS(Route.WRITE, "SELECT chunk_start, chunk_end FROM batch_checkpoints WHERE run_date = ?"),
+    SELECT_BALANCE(Route.WRITE, "SELECT balance FROM accounts WHERE account_id = ?"),
+    SELECT_FULL_HISTORY(Route.BULK, """
+            SELECT transaction_id, account_id, transaction_type, amount, related_account_id,
+                   timestamp, status, remarks
+            FROM transactions
+            WHERE account_id = ?
+            ORDER BY timestamp DESC, transaction_id DESC
+            """),
+    SELECT_ACCOUNT_KEYS(Route.BULK, "SELECT account_id FROM accounts ORDER BY account_id"),
+    SELECT_ACCOUNT_RANGE(Route.BULK, """
+            SELECT account_id, balance FROM accounts
+            WHERE account_id >= ? AND account_id < ?
+            ORDER BY account_id
+            """),
+    SELECT_ACCOUNT_TAIL(Route.BULK, """
+            SELECT account_id, balance FROM accounts
+            WHERE account_id >= ?
+            ORDER BY account_id
+            """),
+    // Archived rows survive only as daily summaries, so ledger totals add both sources.
+    SELECT_LEDGER_TOTALS_RANGE(Route.BULK, """
+            SELECT account_id, SUM(ledger_total) AS ledger_total, SUM(entries) AS entries
+            FROM (
+                SELECT account_id,
+                       SUM(CASE WHEN transaction_type IN ('OPENING', 'DEPOSIT', 'TRANSFER_IN', 'INTEREST') THEN amount
+                                WHEN transaction_type IN ('WITHDRAWAL', 'TRANSFER_OUT', 'FEE') THEN -amount
+                                ELSE 0 END) AS ledger_total,
+                       COUNT(*) AS entries
+                FROM transactions
+                WHERE status = 'SUCCESS' AND account_id >= ? AND account_id < ?
+                GROUP BY account_id
+                UNION ALL
+                SELECT account_id,
+                       SUM(CASE WHEN transaction_type IN ('OPENING', 'DEPOSIT', 'TRANSFER_IN', 'INTEREST') THEN total_amount
+                                WHEN transaction_type IN ('WITHDRAWAL', 'TRANSFER_OUT', 'FEE') THEN -total_amount
+                                ELSE 0 END),
+                       SUM(entry_count)
+                FROM transaction_daily_summaries
+                WHERE status = 'SUCCESS' AND account_id >= ? AND account_id < ?
+                GROUP BY account_id
+            ) totals
+            GROUP BY account_id
+            ORDER BY account_id
+            """),
+    SELECT_LEDGER_TOTALS_TAIL(Route.BULK, """
+            SELECT account_id, SUM(ledger_total) AS ledger_total, SUM(entries) AS entries
+            FROM (
+                SELECT account_id,
+                       SUM(CASE WHEN transaction_type IN ('OPENING', 'DEPOSIT', 'TRANSFER_IN', 'INTEREST') THEN amount
+                                WHEN transaction_type IN ('WITHDRAWAL', 'TRANSFER_OUT', 'FEE') THEN -amount
+                                ELSE 0 END) AS ledger_total,
+                       COUNT(*) AS entries
+                FROM transactions
+                WHERE status = 'SUCCESS' AND account_id >= ?
+                GROUP BY account_id
+                UNION ALL
+                SELECT account_id,
+                       SUM(CASE WHEN transaction_type IN ('OPENING', 'DEPOSIT', 'TRANSFER_IN', 'INTEREST') THEN total_amount
+                                WHEN transaction_type IN ('WITHDRAWAL', 'TRANSFER_OUT', 'FEE') THEN -total_amount
+                                ELSE 0 END),
+                       SUM(entry_count)
+                FROM transaction_daily_summaries
+                WHERE status = 'SUCCESS' AND account_id >= ?
+                GROUP BY account_id
+            ) totals
+            GROUP BY account_id
+            ORDER BY account_id
+            """),
+    // Accounts created before the opening balance was ledgered have no OPENING row, live or archived.
+    // Their opening amount is whatever the balance holds beyond their ledger total.
+    BACKFILL_OPENING_ENTRIES(Route.WRITE, """
+            INSERT INTO transactions (account_id, transaction_type, amount, related_account_id, timestamp, status,
+                                      remarks)
+            SELECT a.account_id, 'OPENING', a.balance - COALESCE(l.ledger_total, 0), NULL, a.created_at, 'SUCCESS', ?
+            FROM accounts a
+            LEFT JOIN (
+                SELECT account_id, SUM(ledger_total) AS ledger_total
+                FROM (
+                    SELECT account_id,
+                           SUM(CASE WHEN transaction_type IN ('DEPOSIT', 'TRANSFER_IN', 'INTEREST') THEN amount
+                                    WHEN transaction_type IN ('WITHDRAWAL', 'TRANSFER_OUT', 'FEE') THEN -amount
+                                    ELSE 0 END) AS ledger_total
+                    FROM transactions
+                    WHERE status = 'SUCCESS'
+                    GROUP BY account_id
+                    UNION ALL
+                    SELECT account_id,
+                           SUM(CASE WHEN transaction_type IN ('DEPOSIT', 'TRANSFER_IN', 'INTEREST') THEN total_amount
+                                    WHEN transaction_type IN ('WITHDRAWAL', 'TRANSFER_OUT', 'FEE') THEN -total_amount
+                                    ELSE 0 END)
+                    FROM transaction_daily_summaries
+                    WHERE status = 'SUCCESS'
+                    GROUP BY account_id
+                ) totals
+                GROUP BY account_id
+            ) l ON l.account_id = a.account_id
+            WHERE a.balance <> COALESCE(l.ledger_total, 0)
+              AND NOT EXISTS (SELECT 1 FROM transactions t
+                              WHERE t.account_id = a.account_id AND t.transaction_type = 'OPENING')
+              AND NOT EXISTS (SELECT 1 FROM transaction_daily_summaries d
+                              WHERE d.account_id = a.account_id AND d.transaction_type = 'OPENING')
+            """),
+    SELECT_OLDEST_TRANSACTION(Route.WRITE, "SELECT MIN(timestamp) AS oldest FROM transactions WHERE timestamp < ?"),
+    SELECT_ARCHIVE_CANDIDATES(Route.BULK, """
+            SELECT transaction_id, account_id, transaction_type, amount, related_account_id,
+                   timestamp, status, remarks
+            FROM transactions
+            WHERE timestamp >= ? AND timestamp < ?
+            ORDER BY account_id, timestamp, transaction_id
+            """),
+    INSERT_ARCHIVE_SEGMENT(Route.WRITE, """
+            INSERT INTO archive_segments (file_name, range_key, segment_month, first_account_id, last_account_id,
+                                          row_count, min_transaction_id, max_transaction_id,
+                                          min_timestamp, max_timestamp, sha256)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """),
+    // Runs on the connection that just inserted the manifest row, so LAST_INSERT_ID() is its segment_id.
+    INSERT_ARCHIVE_SEGMENT_ACCOUNT(Route.WRITE, """
+            INSERT INTO archive_segment_accounts (account_id, segment_id, segment_month,
+                                                  byte_offset, byte_length, row_count)
+            VALUES (?, LAST_INSERT_ID(), ?, ?, ?, ?)
+            """),
+    UPSERT_DAILY_SUMMARY(Route.WRITE, """
+            INSERT INTO transaction_daily_summaries (account_id, summary_date, transaction_type, status,
+                                                     entry_count, total_amount)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE entry_count = entry_count + VALUES(entry_count),
+                                    total_amount = total_amount + VALUES(total_amount)
+            """),
+    DELETE_ARCHIVED_RANGE(Route.WRITE, """
+            DELETE FROM transactions
+            WHERE account_id >= ? AND account_id <= ?
+              AND timestamp >= ? AND timestamp < ?
+              AND transaction_id >= ? AND transaction_id <= ?
+            """),
+    SELECT_ARCHIVED_ACCOUNT_MEMBERS(Route.READ, """
+            SELECT s.file_name, a.byte_offset, a.byte_length, a.row_count
+            FROM archive_segment_accounts a
+            JOIN archive_segments s ON s.segment_id = a.segment_id
+            WHERE a.account_id = ?
+            ORDER BY a.segment_month DESC, a.segment_id DESC
+            """),
+    SELECT_ALL_ARCHIVE_SEGMENTS(Route.WRITE,
+            "SELECT file_name, row_count, sha256 FROM archive_segments ORDER BY segment_id");
+
+    // BULK statements run on dedicated streaming connections and are never prepared by a pool.
+    public enum Route { WRITE, READ, BULK }
+
+    private final Route route;
+    private final String sql;
+
+    SqlStatement(Route route, String sql) {
+        this.route = route;
+        this.sql = sql;
+    }
+
+    public Route getRoute() { return route; }
+    public String getSql() { return sql; }
+}
@@ -1,7 +1,7 @@
-package com.banking.exception;
-
-public class AccountNotFoundException extends Exception {
-    public AccountNotFoundException(String message) {
-        super(message);
-    }
+package com.banking.exception;
+
+public class AccountNotFoundException extends Exception {
+    public AccountNotFoundException(String message) {
+        super(message);
+    }
 }
\ No newline at end of file
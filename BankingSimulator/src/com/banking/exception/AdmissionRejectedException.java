@@ -0,0 +1,17 @@
+package com.banking.exception;
+
+public class AdmissionRejectedException extends Exception {
+    public enum Reason { ACCOUNT_RATE_LIMIT, GLOBAL_RATE_LIMIT, CONCURRENCY_LIMIT }
+
+    private final Reason reason;
+
+    // Rejections are shed on the hot path, so they carry no stack trace and can be shared.
+    public AdmissionRejectedException(Reason reason, String message) {
+        super(message, null, false, false);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
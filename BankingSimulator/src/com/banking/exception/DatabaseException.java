@@ -1,7 +1,7 @@
-package com.banking.exception;
-
-public class DatabaseException extends Exception {
-    public DatabaseException(String message, Throwable cause) {
-        super(message, cause);
-    }
+package com.banking.exception;
+
+public class DatabaseException extends Exception {
+    public DatabaseException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
\ No newline at end of file
@@ -1,7 +1,12 @@
-package com.banking.exception;
-
-public class InsufficientBalanceException extends Exception {
-    public InsufficientBalanceException(String message) {
-        super(message);
-    }
+package com.banking.exception;
+
+public class InsufficientBalanceException extends Exception {
+    public InsufficientBalanceException(String message) {
+        super(message);
+    }
+
+    // For shared, preallocated instances thrown on the posting path.
+    public InsufficientBalanceException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
\ No newline at end of file
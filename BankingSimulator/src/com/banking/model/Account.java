@@ -1,35 +1,176 @@
-package com.banking.model;
-
-import java.time.LocalDateTime;
-
-public class Account {
-    private String accountId;
-    private String accountHolderName;
-    private String email;
-    private double balance;
-    private double minBalanceThreshold;
-    private LocalDateTime createdAt;
-
-    public Account(String accountId, String accountHolderName, String email, double initialBalance, double minBalanceThreshold) {
-        this.accountId = accountId;
-        this.accountHolderName = accountHolderName;
-        this.email = email;
-        this.balance = initialBalance;
-        this.minBalanceThreshold = minBalanceThreshold;
-        this.createdAt = LocalDateTime.now();
-    }
-
-    public String getAccountId() { return accountId; }
-    public String getAccountHolderName() { return accountHolderName; }
-    public String getEmail() { return email; }
-    public double getBalance() { return balance; }
-    public void setBalance(double balance) { this.balance = balance; }
-    public double getMinBalanceThreshold() { return minBalanceThreshold; }
-    public LocalDateTime getCreatedAt() { return createdAt; }
-
-    @Override
-    public String toString() {
-        return String.format("Account[ID=%s, Holder=%s, Balance=%.2f, Email=%s]",
-                accountId, accountHolderName, balance, email);
-    }
-}
+package com.banking.model;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Account {
+    private static final int INITIAL_VERSION_SLOTS = 4;
+    private static final long UNUSED_VERSION = Long.MAX_VALUE;
+
+    private String accountId;
+    private String accountHolderName;
+    private String email;
+    private volatile double balance;
+    private double minBalanceThreshold;
+    private LocalDateTime createdAt;
+    private final AtomicLong heldAmountBits = new AtomicLong(Double.doubleToLongBits(0.0));
+
+    // Ring of (epoch, balance) versions for snapshot reads, newest at latestVersion. Guarded by this.
+    private volatile long createdEpoch;
+    private long[] versionEpochs;
+    private double[] versionBalances;
+    private int latestVersion;
+
+    public Account(String accountId, String accountHolderName, String email, double initialBalance, double minBalanceThreshold) {
+        this.accountId = accountId;
+        this.accountHolderName = accountHolderName;
+        this.email = email;
+        this.balance = initialBalance;
+        this.minBalanceThreshold = minBalanceThreshold;
+        this.createdAt = LocalDateTime.now();
+        this.versionEpochs = new long[INITIAL_VERSION_SLOTS];
+        this.versionBalances = new double[INITIAL_VERSION_SLOTS];
+        Arrays.fill(versionEpochs, UNUSED_VERSION);
+        versionEpochs[0] = 0;
+        versionBalances[0] = initialBalance;
+    }
+
+    public String getAccountId() { return accountId; }
+    public String getAccountHolderName() { return accountHolderName; }
+    public String getEmail() { return email; }
+    public double getBalance() { return balance; }
+    public double getHeldAmount() { return Double.longBitsToDouble(heldAmountBits.get()); }
+    public double getMinBalanceThreshold() { return minBalanceThreshold; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public long getCreatedEpoch() { return createdEpoch; }
+
+    public synchronized void setCreatedEpoch(long epoch) {
+        createdEpoch = epoch;
+        versionEpochs[latestVersion] = epoch;
+    }
+
+    // Balance writes carry the current snapshot epoch plus the oldest epoch an open snapshot may
+    // still read, so versions that snapshot needs are kept rather than recycled.
+    public synchronized void setBalance(double balance, long epoch, long oldestOpenEpoch) {
+        double delta = balance - this.balance;
+        this.balance = balance;
+        recordVersion(delta, epoch, oldestOpenEpoch);
+    }
+
+    public synchronized double adjustBalance(double delta, long epoch, long oldestOpenEpoch) {
+        balance += delta;
+        recordVersion(delta, epoch, oldestOpenEpoch);
+        return balance;
+    }
+
+    public synchronized double getBalanceAt(long epoch) {
+        int slots = versionEpochs.length;
+        for (int i = 0, index = latestVersion; i < slots; i++, index = (index + slots - 1) % slots) {
+            if (versionEpochs[index] <= epoch) {
+                return versionBalances[index];
+            }
+        }
+        throw new IllegalStateException("No balance version of " + accountId + " at epoch " + epoch);
+    }
+
+    private void recordVersion(double delta, long epoch, long oldestOpenEpoch) {
+        long latestEpoch = versionEpochs[latestVersion];
+        if (latestEpoch == epoch) {
+            versionBalances[latestVersion] = balance;
+            return;
+        }
+        if (latestEpoch < epoch) {
+            pushVersion(epoch, balance, oldestOpenEpoch);
+            return;
+        }
+
+        // A writer from the previous epoch finished after one from the current epoch. The snapshot
+        // of the previous epoch is still waiting for it, so its version gets this delta but not
+        // the newer one.
+        versionBalances[latestVersion] = balance;
+        int slots = versionEpochs.length;
+        int previous = (latestVersion + slots - 1) % slots;
+        if (versionEpochs[previous] == epoch) {
+            versionBalances[previous] += delta;
+            return;
+        }
+        double newer = versionBalances[latestVersion];
+        versionEpochs[latestVersion] = epoch;
+        versionBalances[latestVersion] = versionBalances[previous] + delta;
+        pushVersion(latestEpoch, newer, oldestOpenEpoch);
+    }
+
+    private void pushVersion(long epoch, double value, long oldestOpenEpoch) {
+        int slots = versionEpochs.length;
+        int oldest = (latestVersion + 1) % slots;
+        int nextOldest = (latestVersion + 2) % slots;
+        if (versionEpochs[oldest] != UNUSED_VERSION && oldestOpenEpoch < versionEpochs[nextOldest]) {
+            growVersions();
+            slots = versionEpochs.length;
+        }
+        latestVersion = (latestVersion + 1) % slots;
+        versionEpochs[latestVersion] = epoch;
+        versionBalances[latestVersion] = value;
+    }
+
+    // Only reached while a long-lived snapshot pins old versions; unrolls the ring oldest-first.
+    private void growVersions() {
+        int slots = versionEpochs.length;
+        long[] epochs = new long[slots * 2];
+        double[] balances = new double[slots * 2];
+        Arrays.fill(epochs, UNUSED_VERSION);
+        for (int i = 0; i < slots; i++) {
+            int index = (latestVersion + 1 + i) % slots;
+            epochs[i] = versionEpochs[index];
+            balances[i] = versionBalances[index];
+        }
+        versionEpochs = epochs;
+        versionBalances = balances;
+        latestVersion = slots - 1;
+    }
+
+    public double getAvailableBalance() {
+        double held = getHeldAmount();
+        return balance - held;
+    }
+
+    // The held amount is read before the balance so that a confirmed debit (balance lowered
+    // first, hold released second) can only ever make the available balance look smaller.
+    public boolean tryHold(double amount) {
+        // A NaN hold would poison the held total and disable every later funds check.
+        if (!(amount >= 0) || !Double.isFinite(amount)) {
+            return false;
+        }
+        while (true) {
+            long heldBits = heldAmountBits.get();
+            double held = Double.longBitsToDouble(heldBits);
+            if (balance - held < amount) {
+                return false;
+            }
+            if (heldAmountBits.compareAndSet(heldBits, Double.doubleToLongBits(held + amount))) {
+                return true;
+            }
+        }
+    }
+
+    public void releaseHold(double amount) {
+        if (!Double.isFinite(amount)) {
+            return;
+        }
+        while (true) {
+            long heldBits = heldAmountBits.get();
+            double held = Math.max(0.0, Double.longBitsToDouble(heldBits) - amount);
+            if (heldAmountBits.compareAndSet(heldBits, Double.doubleToLongBits(held))) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Account[ID=%s, Holder=%s, Balance=%.2f, Email=%s]",
+                accountId, accountHolderName, balance, email);
+    }
+}
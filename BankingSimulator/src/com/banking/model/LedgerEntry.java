@@ -0,0 +1,46 @@
+package com.banking.model;
+
+/**
+ * Mutable ledger record used on the posting path. Instances are pooled and refilled for every
+ * posting, so unlike {@link Transaction} it holds an enum remark and an epoch-nanos timestamp
+ * rather than allocating strings and date objects.
+ */
+public class LedgerEntry {
+    private final int poolIndex;
+    private String accountId;
+    private String transactionType;
+    private double amount;
+    private String relatedAccountId;
+    private String status;
+    private TransactionRemark remark;
+    private long timestampNanos;
+
+    public LedgerEntry(int poolIndex) {
+        this.poolIndex = poolIndex;
+    }
+
+    public LedgerEntry set(String accountId, String transactionType, double amount, String relatedAccountId,
+                           String status, TransactionRemark remark, long timestampNanos) {
+        this.accountId = accountId;
+        this.transactionType = transactionType;
+        this.amount = amount;
+        this.relatedAccountId = relatedAccountId;
+        this.status = status;
+        this.remark = remark;
+        this.timestampNanos = timestampNanos;
+        return this;
+    }
+
+    public void clear() {
+        set(null, null, 0, null, null, null, 0);
+    }
+
+    public int getPoolIndex() { return poolIndex; }
+    public String getAccountId() { return accountId; }
+    public String getTransactionType() { return transactionType; }
+    public double getAmount() { return amount; }
+    public String getRelatedAccountId() { return relatedAccountId; }
+    public String getStatus() { return status; }
+    public TransactionRemark getRemark() { return remark; }
+    public long getTimestampNanos() { return timestampNanos; }
+}
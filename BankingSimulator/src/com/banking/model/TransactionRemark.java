@@ -0,0 +1,20 @@
+package com.banking.model;
+
+public enum TransactionRemark {
+    OPENING_BALANCE("Opening balance"),
+    DEPOSIT_SUCCESSFUL("Deposit successful"),
+    WITHDRAWAL_SUCCESSFUL("Withdrawal successful"),
+    INSUFFICIENT_BALANCE("Insufficient balance"),
+    TRANSFER_TO("Transfer to"),
+    TRANSFER_FROM("Transfer from"),
+    INTEREST_ACCRUAL("Daily interest accrual"),
+    MAINTENANCE_FEE("Maintenance fee: balance below minimum");
+
+    private final String text;
+
+    TransactionRemark(String text) {
+        this.text = text;
+    }
+
+    public String getText() { return text; }
+}
@@ -0,0 +1,24 @@
+package com.banking.monitoring;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.banking.AlertCheck")
+@Label("Alert Check")
+@Description("Low-balance check after a posting, including the alert when it runs inline")
+public class AlertCheckEvent extends BankingEvent {
+    @Label("Account Id")
+    String accountId;
+
+    @Label("Below Threshold")
+    boolean belowThreshold;
+
+    public AlertCheckEvent(String accountId) {
+        this.accountId = accountId;
+    }
+
+    public void setBelowThreshold(boolean belowThreshold) {
+        this.belowThreshold = belowThreshold;
+    }
+}
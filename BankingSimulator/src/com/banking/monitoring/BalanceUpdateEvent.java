@@ -0,0 +1,21 @@
+package com.banking.monitoring;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.banking.BalanceUpdate")
+@Label("Balance Update")
+@Description("UPDATE of an account balance in the database")
+public class BalanceUpdateEvent extends BankingEvent {
+    @Label("Account Id")
+    String accountId;
+
+    @Label("Delta")
+    double delta;
+
+    public BalanceUpdateEvent(String accountId, double delta) {
+        this.accountId = accountId;
+        this.delta = delta;
+    }
+}
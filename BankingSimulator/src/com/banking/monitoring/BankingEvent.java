@@ -0,0 +1,28 @@
+package com.banking.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base for the Flight Recorder events on the posting path. While no recording has them enabled,
+ * begin() and commit() do nothing and the JIT removes the event object, so the instrumentation
+ * stays compiled in. Start a recording with -XX:StartFlightRecording=filename=banking.jfr and
+ * summarise it with {@link JfrLatencyReport}.
+ */
+@Category("Banking")
+@StackTrace(false)
+public abstract class BankingEvent extends Event {
+    public static final String SUCCESS = "SUCCESS";
+
+    @Label("Outcome")
+    String outcome;
+
+    // Call only after shouldCommit() and from a finally block. Guarding at the call site keeps the
+    // exceptional path free of calls while recording is off, so the JIT can scalar-replace the event.
+    public void record(Throwable failure) {
+        outcome = failure == null ? SUCCESS : failure.getClass().getSimpleName();
+        commit();
+    }
+}
@@ -0,0 +1,17 @@
+package com.banking.monitoring;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.banking.ConnectionAcquire")
+@Label("Connection Acquire")
+@Description("Time spent borrowing a connection from a pool, including waiting and validation")
+public class ConnectionAcquireEvent extends BankingEvent {
+    @Label("Pool")
+    String pool;
+
+    public ConnectionAcquireEvent(String pool) {
+        this.pool = pool;
+    }
+}
@@ -0,0 +1,17 @@
+package com.banking.monitoring;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.banking.EmailSend")
+@Label("Email Send")
+@Description("Delivery of one notification email")
+public class EmailSendEvent extends BankingEvent {
+    @Label("Recipient")
+    String recipient;
+
+    public EmailSendEvent(String recipient) {
+        this.recipient = recipient;
+    }
+}
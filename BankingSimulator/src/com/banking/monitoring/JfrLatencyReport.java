@@ -0,0 +1,94 @@
+package com.banking.monitoring;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Turns a Flight Recorder file into per-phase latency histograms for the banking events, plus
+ * the slowest postings with their account ids.
+ * Usage: JfrLatencyReport recording.jfr [--by-outcome] [--top N]
+ */
+public class JfrLatencyReport {
+    private static final String EVENT_PREFIX = "com.banking.";
+    private static final String POSTING_EVENT = "com.banking.Posting";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: JfrLatencyReport <recording.jfr> [--by-outcome] [--top N]");
+            System.exit(2);
+        }
+        Path recording = Path.of(args[0]);
+        boolean byOutcome = false;
+        int top = 10;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--by-outcome")) {
+                byOutcome = true;
+            } else if (args[i].equals("--top") && i + 1 < args.length) {
+                top = Integer.parseInt(args[++i]);
+            }
+        }
+
+        Map<String, LatencyHistogram> phases = new TreeMap<>();
+        // Fastest of the kept postings on top, so each new one only has to beat that.
+        Comparator<RecordedEvent> byDuration = Comparator.comparing(RecordedEvent::getDuration);
+        PriorityQueue<RecordedEvent> slowest = new PriorityQueue<>(byDuration);
+
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String name = event.getEventType().getName();
+                if (!name.startsWith(EVENT_PREFIX)) {
+                    continue;
+                }
+                String phase = event.getEventType().getLabel();
+                if (byOutcome) {
+                    phase += " [" + event.getString("outcome") + "]";
+                }
+                phases.computeIfAbsent(phase, p -> new LatencyHistogram()).record(event.getDuration().toNanos());
+                if (name.equals(POSTING_EVENT) && top > 0) {
+                    if (slowest.size() < top) {
+                        slowest.add(event);
+                    } else if (byDuration.compare(event, slowest.peek()) > 0) {
+                        slowest.poll();
+                        slowest.add(event);
+                    }
+                }
+            }
+        }
+
+        if (phases.isEmpty()) {
+            System.out.println("No banking events in " + recording);
+            return;
+        }
+
+        System.out.println("========== Latency by Phase ==========");
+        for (Map.Entry<String, LatencyHistogram> entry : phases.entrySet()) {
+            entry.getValue().print(System.out, entry.getKey());
+            System.out.println();
+        }
+
+        List<RecordedEvent> postings = new ArrayList<>(slowest);
+        postings.sort(byDuration.reversed());
+        System.out.println("========== Slowest Postings ==========");
+        for (RecordedEvent event : postings) {
+            String related = event.getString("relatedAccountId");
+            System.out.printf("%10.3f ms  %-10s %-12s %-12s %,12.2f  %s  thread=%s%n",
+                    event.getDuration().toNanos() / 1e6,
+                    event.getString("operation"),
+                    event.getString("accountId"),
+                    related != null ? related : "-",
+                    event.getDouble("amount"),
+                    event.getString("outcome"),
+                    event.getThread() != null ? event.getThread().getJavaName() : "?");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.banking.monitoring;
+
+import java.io.PrintStream;
+
+/**
+ * Log-linear latency histogram: every power of two is split into eight buckets, so any recorded
+ * value is reported within 12.5% while the whole range up to Long.MAX_VALUE fits in 512 counters.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BAR_WIDTH = 40;
+
+    private final long[] counts = new long[64 << SUB_BUCKET_BITS];
+    private long count;
+    private long totalNanos;
+    private long minNanos = Long.MAX_VALUE;
+    private long maxNanos;
+
+    public synchronized void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[indexOf(value)]++;
+        count++;
+        totalNanos += value;
+        minNanos = Math.min(minNanos, value);
+        maxNanos = Math.max(maxNanos, value);
+    }
+
+    public synchronized long getCount() { return count; }
+    public synchronized long getMaxNanos() { return maxNanos; }
+    public synchronized long getMinNanos() { return count == 0 ? 0 : minNanos; }
+    public synchronized double getMeanNanos() { return count == 0 ? 0 : (double) totalNanos / count; }
+
+    public synchronized long getPercentileNanos(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    public synchronized void print(PrintStream out, String title) {
+        out.printf("%s: count=%,d min=%s mean=%s p50=%s p90=%s p99=%s p99.9=%s max=%s%n",
+                title, count, format(getMinNanos()), format((long) getMeanNanos()),
+                format(getPercentileNanos(50)), format(getPercentileNanos(90)), format(getPercentileNanos(99)),
+                format(getPercentileNanos(99.9)), format(maxNanos));
+        if (count == 0) {
+            return;
+        }
+
+        // One row per power of two keeps the printout short; percentiles above use the fine buckets.
+        long[] rows = new long[64];
+        long largest = 0;
+        for (int i = 0; i < counts.length; i++) {
+            int row = 63 - Long.numberOfLeadingZeros(Math.max(1, lowerBound(i)));
+            rows[row] += counts[i];
+            largest = Math.max(largest, rows[row]);
+        }
+        for (int row = 0; row < rows.length; row++) {
+            if (rows[row] == 0) {
+                continue;
+            }
+            int bar = (int) Math.max(1, rows[row] * BAR_WIDTH / largest);
+            out.printf("  %10s .. %-10s %10d %s%n", format(1L << row), format((1L << row) * 2), rows[row],
+                    "#".repeat(bar));
+        }
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        return (long) (SUB_BUCKETS | (index & (SUB_BUCKETS - 1))) << shift;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        return lowerBound(index) + (1L << shift) - 1;
+    }
+
+    private static String format(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 1_000_000) {
+            return String.format("%.1fus", nanos / 1e3);
+        }
+        if (nanos < 1_000_000_000) {
+            return String.format("%.1fms", nanos / 1e6);
+        }
+        return String.format("%.2fs", nanos / 1e9);
+    }
+}
@@ -0,0 +1,25 @@
+package com.banking.monitoring;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.banking.LedgerWrite")
+@Label("Ledger Write")
+@Description("INSERT of one row into the transactions table")
+public class LedgerWriteEvent extends BankingEvent {
+    @Label("Account Id")
+    String accountId;
+
+    @Label("Transaction Type")
+    String transactionType;
+
+    @Label("Status")
+    String status;
+
+    public LedgerWriteEvent(String accountId, String transactionType, String status) {
+        this.accountId = accountId;
+        this.transactionType = transactionType;
+        this.status = status;
+    }
+}
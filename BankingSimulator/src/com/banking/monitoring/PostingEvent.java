@@ -0,0 +1,33 @@
+package com.banking.monitoring;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.banking.Posting")
+@Label("Posting")
+@Description("A deposit, withdrawal or transfer from admission to completion")
+public class PostingEvent extends BankingEvent {
+    public static final String DEPOSIT = "DEPOSIT";
+    public static final String WITHDRAWAL = "WITHDRAWAL";
+    public static final String TRANSFER = "TRANSFER";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Account Id")
+    String accountId;
+
+    @Label("Related Account Id")
+    String relatedAccountId;
+
+    @Label("Amount")
+    double amount;
+
+    public PostingEvent(String operation, String accountId, String relatedAccountId, double amount) {
+        this.operation = operation;
+        this.accountId = accountId;
+        this.relatedAccountId = relatedAccountId;
+        this.amount = amount;
+    }
+}
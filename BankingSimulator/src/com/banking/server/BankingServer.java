@@ -0,0 +1,301 @@
+package com.banking.server;
+
+import com.banking.database.DatabaseConnection;
+import com.banking.exception.AdmissionRejectedException;
+import com.banking.model.Transaction;
+import com.banking.service.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Line-based API server for local clients and load tools. Each request is one line of
+ * tab-separated fields: {@code <tag> <COMMAND> <args...>}. Clients may pipeline any number of
+ * requests per connection: requests on one connection are executed one after another in the order
+ * they were sent, so a pipelined DEPOSIT followed by a WITHDRAW always sees the deposit, and
+ * responses echo the tag and are written in that same order. Requests on different connections run
+ * concurrently, so load tools get parallelism by opening more connections.
+ *
+ * <pre>
+ *   CREATE   id name email initialBalance minThreshold
+ *   DEPOSIT  id amount
+ *   WITHDRAW id amount
+ *   TRANSFER fromId toId amount
+ *   BALANCE  id
+ *   HISTORY  id [limit]
+ *   PING
+ * </pre>
+ *
+ * Replies are {@code <tag> OK [value]} or {@code <tag> ERR <ErrorType> <message>}; requests shed by
+ * admission control report {@code Rejected:<reason>} as the error type so clients can back off. A HISTORY
+ * reply is {@code <tag> OK <n>} followed by n {@code <tag> TXN ...} lines.
+ */
+public class BankingServer implements AutoCloseable {
+    private static final int DEFAULT_PORT = 7070;
+    private static final int MAX_PIPELINED_REQUESTS = 1024;
+    private static final int DEFAULT_HISTORY_LIMIT = 100;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final CompletableFuture<String> END_OF_STREAM = CompletableFuture.completedFuture(null);
+
+    private final AsyncBankingService service;
+    private final int port;
+    private final ExecutorService connectionExecutor = AsyncBankingService.newVirtualThreadExecutor();
+    private volatile ServerSocket serverSocket;
+    private volatile boolean running;
+
+    public BankingServer(AsyncBankingService service, int port) {
+        this.service = service;
+        this.port = port;
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        running = true;
+        System.out.println("Banking server listening on " + serverSocket.getLocalSocketAddress());
+
+        Thread acceptor = new Thread(this::acceptConnections, "banking-server-acceptor");
+        acceptor.start();
+    }
+
+    private void acceptConnections() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connectionExecutor.execute(() -> handleConnection(socket));
+            } catch (SocketException e) {
+                if (running) {
+                    System.err.println("Error accepting connection: " + e.getMessage());
+                }
+            } catch (IOException e) {
+                System.err.println("Error accepting connection: " + e.getMessage());
+            }
+        }
+    }
+
+    public int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : port;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        connectionExecutor.shutdownNow();
+    }
+
+    private void handleConnection(Socket socket) {
+        BlockingQueue<CompletableFuture<String>> pending = new ArrayBlockingQueue<>(MAX_PIPELINED_REQUESTS);
+
+        try (socket;
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+
+            CompletableFuture<Void> writerDone = CompletableFuture.runAsync(
+                    () -> writeResponses(pending, writer, socket), connectionExecutor);
+            try {
+                // Each request is dispatched only once the previous one has finished. Replies never
+                // complete exceptionally (errors become ERR lines), so the chain cannot break.
+                CompletableFuture<String> previous = CompletableFuture.completedFuture(null);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        String request = line;
+                        previous = previous.thenCompose(reply -> dispatch(request));
+                        pending.put(previous);
+                    }
+                }
+            } finally {
+                pending.put(END_OF_STREAM);
+                writerDone.join();
+            }
+
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Connection error: " + e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Responses are written strictly in request order; once the client is gone the remaining
+    // replies are drained and dropped so the reader can never block on a full queue.
+    private void writeResponses(BlockingQueue<CompletableFuture<String>> pending, Writer writer, Socket socket) {
+        boolean failed = false;
+        while (true) {
+            CompletableFuture<String> next;
+            try {
+                next = pending.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closeQuietly(socket);
+                return;
+            }
+            if (next == END_OF_STREAM) {
+                break;
+            }
+            if (failed) {
+                continue;
+            }
+            try {
+                writer.write(next.join());
+                // Flush before blocking: if the next reply is not ready yet, the ones already
+                // written must not sit in the buffer while it runs.
+                CompletableFuture<String> following = pending.peek();
+                if (following == null || !following.isDone()) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                failed = true;
+                closeQuietly(socket);
+            }
+        }
+        if (!failed) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    private CompletableFuture<String> dispatch(String line) {
+        String[] fields = line.split("\t", -1);
+        String tag = fields[0];
+
+        try {
+            String command = fields.length > 1 ? fields[1] : "";
+            CompletableFuture<String> result = switch (command) {
+                case "CREATE" -> {
+                    expectArgs(fields, 5);
+                    yield service.createAccount(fields[2], fields[3], fields[4],
+                            Double.parseDouble(fields[5]), Double.parseDouble(fields[6])).thenApply(v -> "");
+                }
+                case "DEPOSIT" -> {
+                    expectArgs(fields, 2);
+                    yield service.deposit(fields[2], Double.parseDouble(fields[3])).thenApply(v -> "");
+                }
+                case "WITHDRAW" -> {
+                    expectArgs(fields, 2);
+                    yield service.withdraw(fields[2], Double.parseDouble(fields[3])).thenApply(v -> "");
+                }
+                case "TRANSFER" -> {
+                    expectArgs(fields, 3);
+                    yield service.transfer(fields[2], fields[3], Double.parseDouble(fields[4])).thenApply(v -> "");
+                }
+                case "BALANCE" -> {
+                    expectArgs(fields, 1);
+                    yield service.getBalance(fields[2]).thenApply(balance -> String.format("\t%.2f", balance));
+                }
+                case "HISTORY" -> {
+                    expectArgs(fields, 1);
+                    int limit = fields.length > 3 ? Integer.parseInt(fields[3]) : DEFAULT_HISTORY_LIMIT;
+                    yield service.getTransactionHistory(fields[2], limit)
+                            .thenApply(transactions -> formatHistory(tag, transactions));
+                }
+                case "PING" -> CompletableFuture.completedFuture("");
+                default -> throw new IllegalArgumentException("Unknown command: " + command);
+            };
+
+            return result.handle((payload, error) -> error == null
+                    ? tag + "\tOK" + payload + "\n"
+                    : formatError(tag, error));
+
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(formatError(tag, e));
+        }
+    }
+
+    private static void expectArgs(String[] fields, int count) {
+        if (fields.length < count + 2) {
+            throw new IllegalArgumentException("Expected " + count + " argument(s) for " + fields[1]);
+        }
+    }
+
+    private static String formatHistory(String tag, List<Transaction> transactions) {
+        StringBuilder payload = new StringBuilder().append('\t').append(transactions.size());
+        for (Transaction transaction : transactions) {
+            payload.append('\n').append(tag).append("\tTXN")
+                    .append('\t').append(transaction.getTransactionId())
+                    .append('\t').append(transaction.getTimestamp().format(TIMESTAMP_FORMAT))
+                    .append('\t').append(transaction.getTransactionType())
+                    .append('\t').append(String.format("%.2f", transaction.getAmount()))
+                    .append('\t').append(transaction.getRelatedAccountId() != null ? transaction.getRelatedAccountId() : "")
+                    .append('\t').append(transaction.getStatus())
+                    .append('\t').append(sanitize(transaction.getRemarks()));
+        }
+        return payload.toString();
+    }
+
+    private static String formatError(String tag, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String type;
+        if (cause instanceof IllegalArgumentException) {
+            type = "BadRequest";
+        } else if (cause instanceof AdmissionRejectedException rejected) {
+            type = "Rejected:" + rejected.getReason();
+        } else {
+            type = cause.getClass().getSimpleName();
+        }
+        return tag + "\tERR\t" + type + "\t" + sanitize(cause.getMessage()) + "\n";
+    }
+
+    private static String sanitize(String text) {
+        return text == null ? "" : text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+
+        DatabaseConnection.initializeDatabase();
+
+        AccountManager accountManager = new AccountManager();
+        EmailService emailService = new EmailService();
+        BalanceAlertTracker alertTracker = new BalanceAlertTracker(accountManager, emailService);
+        TransactionProcessor transactionProcessor = new TransactionProcessor(accountManager, alertTracker);
+        transactionProcessor.setConsoleOutput(false);
+        ReportingHub reportingHub = new ReportingHub(accountManager);
+        AsyncBankingService service = new AsyncBankingService(accountManager, transactionProcessor,
+                reportingHub, alertTracker);
+
+        BankingServer server = new BankingServer(service, port);
+        server.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.err.println("Error stopping server: " + e.getMessage());
+            }
+            service.close();
+        }));
+    }
+}
@@ -1,112 +1,279 @@
-package com.banking.service;
-
-import com.banking.database.DatabaseConnection;
-import com.banking.exception.AccountNotFoundException;
-import com.banking.exception.DatabaseException;
-import com.banking.model.Account;
-
-import java.sql.*;
-import java.util.HashMap;
-import java.util.Map;
-
-public class AccountManager {
-    private Map<String, Account> accountCache;
-
-    public AccountManager() {
-        this.accountCache = new HashMap<>();
-        loadAccountsFromDatabase();
-    }
-
-    private void loadAccountsFromDatabase() {
-        String query = "SELECT * FROM accounts";
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-
-            while (rs.next()) {
-                Account account = new Account(
-                        rs.getString("account_id"),
-                        rs.getString("account_holder_name"),
-                        rs.getString("email"),
-                        rs.getDouble("balance"),
-                        rs.getDouble("min_balance_threshold")
-                );
-                accountCache.put(account.getAccountId(), account);
-            }
-            System.out.println("Loaded " + accountCache.size() + " accounts from database.");
-        } catch (SQLException e) {
-            System.err.println("Error loading accounts: " + e.getMessage());
-        }
-    }
-
-    public void createAccount(String accountId, String holderName, String email,
-                              double initialBalance, double minThreshold) throws DatabaseException {
-        if (accountCache.containsKey(accountId)) {
-            throw new DatabaseException("Account already exists with ID: " + accountId, null);
-        }
-
-        Account account = new Account(accountId, holderName, email, initialBalance, minThreshold);
-
-        String insertQuery = "INSERT INTO accounts (account_id, account_holder_name, email, balance, min_balance_threshold) VALUES (?, ?, ?, ?, ?)";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
-
-            pstmt.setString(1, accountId);
-            pstmt.setString(2, holderName);
-            pstmt.setString(3, email);
-            pstmt.setDouble(4, initialBalance);
-            pstmt.setDouble(5, minThreshold);
-
-            pstmt.executeUpdate();
-            accountCache.put(accountId, account);
-            System.out.println("Account created successfully: " + accountId);
-
-        } catch (SQLException e) {
-            throw new DatabaseException("Error creating account", e);
-        }
-    }
-
-    public Account getAccount(String accountId) throws AccountNotFoundException {
-        Account account = accountCache.get(accountId);
-        if (account == null) {
-            throw new AccountNotFoundException("Account not found: " + accountId);
-        }
-        return account;
-    }
-
-    public void updateBalance(String accountId, double newBalance) throws AccountNotFoundException, DatabaseException {
-        Account account = getAccount(accountId);
-
-        String updateQuery = "UPDATE accounts SET balance = ? WHERE account_id = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
-
-            pstmt.setDouble(1, newBalance);
-            pstmt.setString(2, accountId);
-            pstmt.executeUpdate();
-
-            account.setBalance(newBalance);
-
-        } catch (SQLException e) {
-            throw new DatabaseException("Error updating balance", e);
-        }
-    }
-
-    public Map<String, Account> getAllAccounts() {
-        return new HashMap<>(accountCache);
-    }
-
-    public double getBalance(String accountId) throws AccountNotFoundException {
-        return getAccount(accountId).getBalance();
-    }
-
-    public void displayAllAccounts() {
-        System.out.println("\n========== All Accounts ==========");
-        for (Account account : accountCache.values()) {
-            System.out.println(account);
-        }
-        System.out.println("==================================\n");
-    }
-}
+package com.banking.service;
+
+import com.banking.capture.TracedCall;
+import com.banking.capture.WorkloadRecorder;
+import com.banking.database.DatabaseConnection;
+import com.banking.database.PooledConnection;
+import com.banking.database.SqlStatement;
+import com.banking.exception.AccountNotFoundException;
+import com.banking.exception.DatabaseException;
+import com.banking.model.Account;
+import com.banking.model.TransactionRemark;
+import com.banking.monitoring.BalanceUpdateEvent;
+
+import java.sql.*;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class AccountManager {
+    private Map<String, Account> accountCache;
+    private final SnapshotEpochs epochs = new SnapshotEpochs();
+    private final WorkloadRecorder recorder = WorkloadRecorder.active();
+
+    public AccountManager() {
+        this.accountCache = new ConcurrentHashMap<>();
+        loadAccountsFromDatabase();
+    }
+
+    // Starts from a known set of accounts without reading the database, e.g. for benchmarks.
+    public AccountManager(List<Account> accounts) {
+        this.accountCache = new ConcurrentHashMap<>();
+        for (Account account : accounts) {
+            accountCache.put(account.getAccountId(), account);
+        }
+    }
+
+    private void loadAccountsFromDatabase() {
+        String query = "SELECT * FROM accounts";
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+
+            while (rs.next()) {
+                Account account = new Account(
+                        rs.getString("account_id"),
+                        rs.getString("account_holder_name"),
+                        rs.getString("email"),
+                        rs.getDouble("balance"),
+                        rs.getDouble("min_balance_threshold")
+                );
+                accountCache.put(account.getAccountId(), account);
+            }
+            System.out.println("Loaded " + accountCache.size() + " accounts from database.");
+        } catch (SQLException e) {
+            System.err.println("Error loading accounts: " + e.getMessage());
+        }
+    }
+
+    public void createAccount(String accountId, String holderName, String email,
+                              double initialBalance, double minThreshold) throws DatabaseException {
+        long captureStart = recorder != null ? System.nanoTime() : 0;
+        Exception failure = null;
+        try {
+            insertAccount(accountId, holderName, email, initialBalance, minThreshold);
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (recorder != null) {
+                recorder.recordAccountCreation(captureStart, System.nanoTime(), failure,
+                        accountId, holderName, email, initialBalance, minThreshold);
+            }
+        }
+    }
+
+    private void insertAccount(String accountId, String holderName, String email,
+                               double initialBalance, double minThreshold) throws DatabaseException {
+        if (accountCache.containsKey(accountId)) {
+            throw new DatabaseException("Account already exists with ID: " + accountId, null);
+        }
+
+        Account account = new Account(accountId, holderName, email, initialBalance, minThreshold);
+
+        try (PooledConnection conn = DatabaseConnection.borrow()) {
+            PreparedStatement pstmt = conn.prepare(SqlStatement.INSERT_ACCOUNT);
+
+            pstmt.setString(1, accountId);
+            pstmt.setString(2, holderName);
+            pstmt.setString(3, email);
+            pstmt.setDouble(4, initialBalance);
+            pstmt.setDouble(5, minThreshold);
+
+            // The opening balance goes into the ledger too, so the balance always equals the sum
+            // of the account's successful transactions.
+            conn.begin();
+            try {
+                pstmt.executeUpdate();
+                if (initialBalance != 0) {
+                    PreparedStatement opening = conn.prepare(SqlStatement.INSERT_TRANSACTION);
+                    opening.setString(1, accountId);
+                    opening.setString(2, "OPENING");
+                    opening.setDouble(3, initialBalance);
+                    opening.setString(4, null);
+                    opening.setString(5, "SUCCESS");
+                    opening.setString(6, TransactionRemark.OPENING_BALANCE.getText());
+                    opening.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            DatabaseConnection.recordWrite(accountId);
+
+            long epoch = epochs.enterWrite();
+            try {
+                account.setCreatedEpoch(epoch);
+                accountCache.put(accountId, account);
+            } finally {
+                epochs.exitWrite(epoch);
+            }
+            System.out.println("Account created successfully: " + accountId);
+
+        } catch (SQLException e) {
+            throw new DatabaseException("Error creating account", e);
+        }
+    }
+
+    public Account getAccount(String accountId) throws AccountNotFoundException {
+        Account account = accountCache.get(accountId);
+        if (account == null) {
+            throw new AccountNotFoundException("Account not found: " + accountId);
+        }
+        return account;
+    }
+
+    public void updateBalance(String accountId, double newBalance) throws AccountNotFoundException, DatabaseException {
+        long captureStart = recorder != null ? System.nanoTime() : 0;
+        Exception failure = null;
+        try {
+            writeBalance(accountId, newBalance);
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (recorder != null) {
+                recorder.record(TracedCall.UPDATE_BALANCE, captureStart, System.nanoTime(), failure,
+                        accountId, null, newBalance);
+            }
+        }
+    }
+
+    private void writeBalance(String accountId, double newBalance) throws AccountNotFoundException, DatabaseException {
+        Account account = getAccount(accountId);
+
+        try (PooledConnection conn = DatabaseConnection.borrow()) {
+            PreparedStatement pstmt = conn.prepare(SqlStatement.UPDATE_BALANCE);
+            pstmt.setDouble(1, newBalance);
+            pstmt.setString(2, accountId);
+            pstmt.executeUpdate();
+            DatabaseConnection.recordWrite(accountId);
+
+            long epoch = epochs.enterWrite();
+            try {
+                account.setBalance(newBalance, epoch, epochs.getOldestOpen());
+            } finally {
+                epochs.exitWrite(epoch);
+            }
+
+        } catch (SQLException e) {
+            throw new DatabaseException("Error updating balance", e);
+        }
+    }
+
+    public double applyBalanceDelta(String accountId, double delta) throws AccountNotFoundException, DatabaseException {
+        long captureStart = recorder != null ? System.nanoTime() : 0;
+        Exception failure = null;
+        try {
+            return writeBalanceDelta(accountId, delta);
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (recorder != null) {
+                recorder.record(TracedCall.APPLY_BALANCE_DELTA, captureStart, System.nanoTime(), failure,
+                        accountId, null, delta);
+            }
+        }
+    }
+
+    private double writeBalanceDelta(String accountId, double delta) throws AccountNotFoundException,
+            DatabaseException {
+        getAccount(accountId);
+
+        try (PooledConnection conn = DatabaseConnection.borrow()) {
+            persistBalanceDelta(conn, accountId, delta);
+        } catch (SQLException e) {
+            throw new DatabaseException("Error updating balance", e);
+        }
+        return applyCachedBalanceDelta(accountId, delta);
+    }
+
+    // Writes the delta on the caller's connection so it can share a transaction with the ledger entry;
+    // the cached balance is only adjusted once that transaction commits.
+    public void persistBalanceDelta(PooledConnection conn, String accountId, double delta) throws SQLException {
+        BalanceUpdateEvent event = new BalanceUpdateEvent(accountId, delta);
+        event.begin();
+        SQLException failure = null;
+        try {
+            PreparedStatement pstmt = conn.prepare(SqlStatement.ADJUST_BALANCE);
+            pstmt.setDouble(1, delta);
+            pstmt.setString(2, accountId);
+            pstmt.executeUpdate();
+            DatabaseConnection.recordWrite(accountId);
+        } catch (SQLException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.record(failure);
+            }
+        }
+    }
+
+    public double applyCachedBalanceDelta(String accountId, double delta) throws AccountNotFoundException {
+        Account account = getAccount(accountId);
+        long epoch = epochs.enterWrite();
+        try {
+            return account.adjustBalance(delta, epoch, epochs.getOldestOpen());
+        } finally {
+            epochs.exitWrite(epoch);
+        }
+    }
+
+    // Both legs share one epoch, so a snapshot sees the whole transfer or none of it.
+    public void applyCachedTransfer(Account from, Account to, double amount) {
+        long epoch = epochs.enterWrite();
+        try {
+            long oldestOpen = epochs.getOldestOpen();
+            from.adjustBalance(-amount, epoch, oldestOpen);
+            to.adjustBalance(amount, epoch, oldestOpen);
+        } finally {
+            epochs.exitWrite(epoch);
+        }
+    }
+
+    public AccountSnapshot snapshot() {
+        return new AccountSnapshot(epochs, accountCache);
+    }
+
+    // Live, read-only view; use snapshot() when the balances have to be consistent with each other.
+    public Map<String, Account> getAllAccounts() {
+        return Collections.unmodifiableMap(accountCache);
+    }
+
+    public double getBalance(String accountId) throws AccountNotFoundException {
+        long captureStart = recorder != null ? System.nanoTime() : 0;
+        Exception failure = null;
+        try {
+            return getAccount(accountId).getBalance();
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (recorder != null) {
+                recorder.record(TracedCall.GET_BALANCE, captureStart, System.nanoTime(), failure, accountId, null, 0);
+            }
+        }
+    }
+
+    public void displayAllAccounts() {
+        System.out.println("\n========== All Accounts ==========");
+        for (Account account : accountCache.values()) {
+            System.out.println(account);
+        }
+        System.out.println("==================================\n");
+    }
+}
@@ -0,0 +1,125 @@
+package com.banking.service;
+
+import com.banking.exception.AccountNotFoundException;
+import com.banking.model.Account;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Point-in-time view of every account. Opening one is O(1): it shares the live account map and
+ * reads each balance as of its epoch, so postings made while it is open never show through and
+ * totals add up to a single instant. Accounts opened afterwards are left out. Close it when done
+ * so the balance versions it pins can be recycled.
+ */
+public class AccountSnapshot implements AutoCloseable {
+    private final SnapshotEpochs epochs;
+    private final long epoch;
+    private final Map<String, Account> accounts;
+    private boolean closed;
+
+    AccountSnapshot(SnapshotEpochs epochs, Map<String, Account> accounts) {
+        this.epochs = epochs;
+        this.accounts = accounts;
+        this.epoch = epochs.open();
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public boolean contains(String accountId) {
+        Account account = accounts.get(accountId);
+        return account != null && account.getCreatedEpoch() <= epoch;
+    }
+
+    public Account getAccount(String accountId) throws AccountNotFoundException {
+        Account account = accounts.get(accountId);
+        if (account == null || account.getCreatedEpoch() > epoch) {
+            throw new AccountNotFoundException("Account not found: " + accountId);
+        }
+        return account;
+    }
+
+    public double getBalance(String accountId) throws AccountNotFoundException {
+        return getAccount(accountId).getBalanceAt(epoch);
+    }
+
+    public double balanceOf(Account account) {
+        return account.getBalanceAt(epoch);
+    }
+
+    // Walks the live map lazily, skipping accounts opened after the snapshot.
+    public Iterable<Account> accounts() {
+        return () -> new Iterator<>() {
+            private final Iterator<Account> live = accounts.values().iterator();
+            private Account next = advance();
+
+            private Account advance() {
+                while (live.hasNext()) {
+                    Account account = live.next();
+                    if (account.getCreatedEpoch() <= epoch) {
+                        return account;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Account next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Account current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+
+    public List<String> getAccountIds() {
+        List<String> accountIds = new ArrayList<>();
+        for (Account account : accounts.values()) {
+            if (account.getCreatedEpoch() <= epoch) {
+                accountIds.add(account.getAccountId());
+            }
+        }
+        return accountIds;
+    }
+
+    public int size() {
+        int count = 0;
+        for (Account account : accounts.values()) {
+            if (account.getCreatedEpoch() <= epoch) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public double getTotalBalance() {
+        double total = 0;
+        for (Account account : accounts.values()) {
+            if (account.getCreatedEpoch() <= epoch) {
+                total += account.getBalanceAt(epoch);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            epochs.close(epoch);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.banking.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps in-flight postings and adapts the cap to observed latency: while samples stay close to the
+ * long-run average the limit grows, and when latency climbs (the database is queueing) the limit
+ * shrinks, so excess callers are rejected up front instead of waiting into a timeout.
+ *
+ * Samples are ledger write latencies. They are added to the current window with one atomic add;
+ * whichever caller fills the window takes it over and recomputes the limit while the others keep
+ * sampling into the next one, so no caller ever blocks on the limiter.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double LATENCY_TOLERANCE = 1.5;
+    private static final double LONG_TERM_WEIGHT = 0.1;
+    private static final double SMOOTHING = 0.2;
+    private static final int WINDOW_SAMPLES = 16;
+
+    // The window packs the sample count above a nanosecond sum; capping samples keeps the sum in range.
+    private static final int SUM_BITS = 40;
+    private static final long SUM_MASK = (1L << SUM_BITS) - 1;
+    private static final long ONE_SAMPLE = 1L << SUM_BITS;
+    private static final long MAX_SAMPLE_NANOS = 60_000_000_000L;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger windowPeak = new AtomicInteger();
+    private final AtomicBoolean updating = new AtomicBoolean();
+    private volatile int limit;
+
+    // Touched only by the caller holding the updating flag.
+    private double estimatedLimit;
+    private double longTermLatencyNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 0 < min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void sample(long latencyNanos) {
+        if (latencyNanos < 0) {
+            return;
+        }
+        int concurrent = inFlight.get();
+        int peak = windowPeak.get();
+        while (concurrent > peak && !windowPeak.compareAndSet(peak, concurrent)) {
+            peak = windowPeak.get();
+        }
+        long state = window.addAndGet(ONE_SAMPLE + Math.min(latencyNanos, MAX_SAMPLE_NANOS));
+        if (state >>> SUM_BITS >= WINDOW_SAMPLES && updating.compareAndSet(false, true)) {
+            try {
+                long taken = window.getAndSet(0);
+                int takenPeak = windowPeak.getAndSet(0);
+                long samples = taken >>> SUM_BITS;
+                if (samples > 0) {
+                    update(Math.max(1.0, (double) (taken & SUM_MASK) / samples), takenPeak);
+                }
+            } finally {
+                updating.set(false);
+            }
+        }
+    }
+
+    public int getLimit() { return limit; }
+    public int getInFlight() { return inFlight.get(); }
+
+    private void update(double latencyNanos, int concurrent) {
+        if (longTermLatencyNanos == 0) {
+            longTermLatencyNanos = latencyNanos;
+        } else {
+            longTermLatencyNanos += (latencyNanos - longTermLatencyNanos) * LONG_TERM_WEIGHT;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, LATENCY_TOLERANCE * longTermLatencyNanos / latencyNanos));
+
+        // Only grow when the limit is actually being used; an idle system says nothing about capacity.
+        if (gradient >= 1.0 && concurrent < estimatedLimit / 2) {
+            return;
+        }
+
+        double queueAllowance = Math.sqrt(estimatedLimit);
+        double target = estimatedLimit * gradient + queueAllowance;
+        estimatedLimit = estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,82 @@
+package com.banking.service;
+
+import com.banking.exception.AdmissionRejectedException;
+import com.banking.exception.AdmissionRejectedException.Reason;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Admission control in front of postings: a per-account token bucket, a global token bucket and
+ * an adaptive concurrency limit. {@link #admit(String)} either takes a slot, which must be handed
+ * back with {@link #release()}, or fails fast with a typed rejection; a rejection gives back any
+ * tokens it already took. The limit adapts to the latencies reported through
+ * {@link #recordWriteLatency(long)}, which cover the ledger write alone. Callers admit only
+ * accounts that exist, which keeps the per-account buckets bounded by the number of accounts.
+ */
+public class AdmissionController {
+    private static final AdmissionRejectedException ACCOUNT_RATE_REJECTION =
+            new AdmissionRejectedException(Reason.ACCOUNT_RATE_LIMIT, "Too many requests for this account, retry later");
+    private static final AdmissionRejectedException GLOBAL_RATE_REJECTION =
+            new AdmissionRejectedException(Reason.GLOBAL_RATE_LIMIT, "Service is at its request rate limit, retry later");
+    private static final AdmissionRejectedException CONCURRENCY_REJECTION =
+            new AdmissionRejectedException(Reason.CONCURRENCY_LIMIT, "Service is overloaded, retry later");
+
+    private final double accountPermitsPerSecond;
+    private final int accountBurst;
+    private final TokenBucket globalBucket;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Map<String, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+
+    public AdmissionController(double accountPermitsPerSecond, int accountBurst,
+                               double globalPermitsPerSecond, int globalBurst,
+                               AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.accountPermitsPerSecond = accountPermitsPerSecond;
+        this.accountBurst = accountBurst;
+        this.globalBucket = new TokenBucket(globalPermitsPerSecond, globalBurst);
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    public static AdmissionController withDefaults() {
+        return new AdmissionController(50, 100, 20_000, 5_000,
+                new AdaptiveConcurrencyLimiter(64, 8, 1024));
+    }
+
+    public void admit(String accountId) throws AdmissionRejectedException {
+        long now = System.nanoTime();
+
+        TokenBucket accountBucket = accountBuckets.get(accountId);
+        if (accountBucket == null) {
+            accountBucket = accountBuckets.computeIfAbsent(accountId,
+                    id -> new TokenBucket(accountPermitsPerSecond, accountBurst));
+        }
+        if (!accountBucket.tryAcquire(now)) {
+            throw ACCOUNT_RATE_REJECTION;
+        }
+        if (!globalBucket.tryAcquire(now)) {
+            accountBucket.refund();
+            throw GLOBAL_RATE_REJECTION;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            accountBucket.refund();
+            globalBucket.refund();
+            throw CONCURRENCY_REJECTION;
+        }
+    }
+
+    public void release() {
+        concurrencyLimiter.release();
+    }
+
+    public void recordWriteLatency(long latencyNanos) {
+        concurrencyLimiter.sample(latencyNanos);
+    }
+
+    public void forget(String accountId) {
+        accountBuckets.remove(accountId);
+    }
+
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+}
@@ -0,0 +1,282 @@
+package com.banking.service;
+
+import com.banking.model.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk format of an archive segment: ledger rows sorted by account, timestamp and transaction
+ * id, followed by a row-count trailer. Each account's rows are a gzip member of their own, so the
+ * file reads as one stream end to end, and a single account can be read by decompressing just its
+ * member at the offset recorded in {@code archive_segment_accounts}. Amounts are stored as exact
+ * cents and timestamps as wall-clock milliseconds, so a row reads back exactly as it left the
+ * database. The SHA-256 of the file bytes is recorded in the manifest when the segment is published.
+ */
+final class ArchiveSegment {
+    static final String SUFFIX = ".seg.gz";
+
+    private static final int MAGIC = 0x4253_4547;
+    private static final short VERSION = 2;
+    private static final byte ROW = 1;
+    private static final byte END = 0;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ArchiveSegment() {
+    }
+
+    static final class Writer implements AutoCloseable {
+        private final Path file;
+        private final FileOutputStream fileOut;
+        private final MessageDigest digest;
+        private final DigestOutputStream digestOut;
+        private final List<Member> members = new ArrayList<>();
+        private GZIPOutputStream gzip;
+        private DataOutputStream out;
+        private String memberAccountId;
+        private long memberOffset;
+        private int memberRows;
+        private int rows;
+        private boolean finished;
+
+        Writer(Path file) throws IOException {
+            this.file = file;
+            this.digest = sha256();
+            this.fileOut = new FileOutputStream(file.toFile());
+            this.digestOut = new DigestOutputStream(fileOut, digest);
+            startMember(null);
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+        }
+
+        // Rows must arrive grouped by account; each new account starts a new gzip member.
+        void append(int transactionId, String accountId, String type, long amountCents, String relatedAccountId,
+                    LocalDateTime timestamp, String status, String remarks) throws IOException {
+            if (!accountId.equals(memberAccountId)) {
+                endMember();
+                startMember(accountId);
+            }
+            out.writeByte(ROW);
+            out.writeInt(transactionId);
+            writeString(out, accountId);
+            writeString(out, type);
+            out.writeLong(amountCents);
+            writeString(out, relatedAccountId);
+            out.writeLong(timestamp.toInstant(ZoneOffset.UTC).toEpochMilli());
+            writeString(out, status);
+            writeString(out, remarks);
+            memberRows++;
+            rows++;
+        }
+
+        int getRows() { return rows; }
+
+        // One entry per account, in file order; complete once finish() has returned.
+        List<Member> getMembers() { return members; }
+
+        // Returns the hex SHA-256 of the finished file; the bytes are on disk before this returns.
+        String finish() throws IOException {
+            endMember();
+            startMember(null);
+            out.writeByte(END);
+            out.writeInt(rows);
+            endMember();
+            fileOut.flush();
+            fileOut.getFD().sync();
+            finished = true;
+            fileOut.close();
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                try {
+                    fileOut.close();
+                } finally {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+
+        // The gzip streams are finished, never closed, so the file stays open for the next member.
+        private void startMember(String accountId) throws IOException {
+            memberAccountId = accountId;
+            memberRows = 0;
+            gzip = new GZIPOutputStream(digestOut, BUFFER_SIZE);
+            out = new DataOutputStream(new BufferedOutputStream(gzip, BUFFER_SIZE));
+        }
+
+        private void endMember() throws IOException {
+            out.flush();
+            gzip.finish();
+            long end = fileOut.getChannel().position();
+            if (memberAccountId != null) {
+                members.add(new Member(memberAccountId, memberOffset, (int) (end - memberOffset), memberRows));
+            }
+            memberOffset = end;
+        }
+    }
+
+    static final class Member {
+        private final String accountId;
+        private final long offset;
+        private final int length;
+        private final int rows;
+
+        Member(String accountId, long offset, int length, int rows) {
+            this.accountId = accountId;
+            this.offset = offset;
+            this.length = length;
+            this.rows = rows;
+        }
+
+        String getAccountId() { return accountId; }
+        long getOffset() { return offset; }
+        int getLength() { return length; }
+        int getRows() { return rows; }
+    }
+
+    // Reads one account's member in place: a single positioned read, then only its bytes are inflated.
+    static List<Transaction> readAccount(Path file, String accountId, long offset, int length, int rows)
+            throws IOException {
+        ByteBuffer member = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (member.hasRemaining()) {
+                if (channel.read(member, offset + member.position()) < 0) {
+                    throw new IOException("Archive segment is truncated: " + file);
+                }
+            }
+        }
+
+        List<Transaction> transactions = new ArrayList<>(rows);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new ByteArrayInputStream(member.array()), BUFFER_SIZE), BUFFER_SIZE))) {
+            for (int i = 0; i < rows; i++) {
+                if (in.readByte() != ROW) {
+                    throw new IOException("Archive segment " + file + " has fewer rows at offset " + offset
+                            + " than the index says");
+                }
+                Transaction transaction = readRow(in);
+                if (!transaction.getAccountId().equals(accountId)) {
+                    throw new IOException("Archive segment " + file + " holds " + transaction.getAccountId()
+                            + " at offset " + offset + ", the index says " + accountId);
+                }
+                transactions.add(transaction);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Archive segment is truncated: " + file, e);
+        }
+        return transactions;
+    }
+
+    // Reads every row and checks the trailer; returns the number of rows in the segment.
+    static int count(Path file) throws IOException {
+        int rows = 0;
+        try (DataInputStream in = open(file)) {
+            while (in.readByte() == ROW) {
+                readRow(in);
+                rows++;
+            }
+            int expected = in.readInt();
+            if (expected != rows) {
+                throw new IOException("Archive segment " + file + " has " + rows + " rows, trailer says " + expected);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Archive segment is truncated: " + file, e);
+        }
+        return rows;
+    }
+
+    static String checksum(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static DataInputStream open(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE));
+        try {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Not an archive segment: " + file);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+
+    private static Transaction readRow(DataInputStream in) throws IOException {
+        int transactionId = in.readInt();
+        String accountId = readString(in);
+        String type = readString(in);
+        long amountCents = in.readLong();
+        String relatedAccountId = readString(in);
+        LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneOffset.UTC);
+        String status = readString(in);
+        String remarks = readString(in);
+        return new Transaction(transactionId, accountId, type, amountCents / 100.0, relatedAccountId,
+                timestamp, status, remarks);
+    }
+
+    // Remarks are TEXT and may exceed writeUTF's 64 KB limit, so strings carry an int length.
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.banking.service;
+
+import com.banking.database.DatabaseConnection;
+import com.banking.model.Transaction;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Non-blocking facade over the blocking services. Every call runs on its own virtual thread
+ * and waits for a permit of its operation class, so a backlog of reports or alerts can never
+ * take capacity away from postings. Without virtual threads (before JDK 21) each operation class
+ * gets a fixed platform pool as large as its limit, and the POSTING and READ defaults shrink to
+ * the JDBC pool size, so a burst queues tasks instead of starting thousands of threads.
+ */
+public class AsyncBankingService implements AutoCloseable {
+
+    public enum OperationClass {
+        POSTING(10_000),
+        READ(10_000),
+        REPORT(4),
+        ALERT(16);
+
+        private final int defaultLimit;
+
+        OperationClass(int defaultLimit) {
+            this.defaultLimit = defaultLimit;
+        }
+
+        public int getDefaultLimit() { return defaultLimit; }
+    }
+
+    @FunctionalInterface
+    public interface BlockingCall<T> {
+        T call() throws Exception;
+    }
+
+    private final AccountManager accountManager;
+    private final TransactionProcessor transactionProcessor;
+    private final ReportingHub reportingHub;
+    private final BalanceAlertTracker alertTracker;
+    private final ExecutorService virtualExecutor;
+    private final Map<OperationClass, ExecutorService> executors = new EnumMap<>(OperationClass.class);
+    private final Map<OperationClass, Semaphore> permits = new EnumMap<>(OperationClass.class);
+
+    public AsyncBankingService(AccountManager accountManager, TransactionProcessor transactionProcessor,
+                               ReportingHub reportingHub, BalanceAlertTracker alertTracker) {
+        this(accountManager, transactionProcessor, reportingHub, alertTracker, new EnumMap<>(OperationClass.class));
+    }
+
+    public AsyncBankingService(AccountManager accountManager, TransactionProcessor transactionProcessor,
+                               ReportingHub reportingHub, BalanceAlertTracker alertTracker,
+                               Map<OperationClass, Integer> concurrencyLimits) {
+        this.accountManager = accountManager;
+        this.transactionProcessor = transactionProcessor;
+        this.reportingHub = reportingHub;
+        this.alertTracker = alertTracker;
+        this.virtualExecutor = tryNewVirtualThreadExecutor();
+        if (virtualExecutor == null) {
+            System.err.println("Virtual threads unavailable (JDK 21+ required), using platform pools of at most "
+                    + DatabaseConnection.getPoolSize() + " threads per operation class.");
+        }
+
+        for (OperationClass operationClass : OperationClass.values()) {
+            int defaultLimit = virtualExecutor != null ? operationClass.getDefaultLimit()
+                    : Math.min(operationClass.getDefaultLimit(), DatabaseConnection.getPoolSize());
+            int limit = concurrencyLimits.getOrDefault(operationClass, defaultLimit);
+            if (limit <= 0) {
+                throw new IllegalArgumentException("Concurrency limit for " + operationClass + " must be positive");
+            }
+            permits.put(operationClass, new Semaphore(limit, true));
+            executors.put(operationClass, virtualExecutor != null ? virtualExecutor
+                    : newPlatformPool(operationClass, limit));
+        }
+
+        alertTracker.setAlertExecutor(executorFor(OperationClass.ALERT));
+    }
+
+    public CompletableFuture<Void> createAccount(String accountId, String holderName, String email,
+                                                 double initialBalance, double minThreshold) {
+        return run(OperationClass.POSTING,
+                () -> accountManager.createAccount(accountId, holderName, email, initialBalance, minThreshold));
+    }
+
+    public CompletableFuture<Void> deposit(String accountId, double amount) {
+        return run(OperationClass.POSTING, () -> transactionProcessor.deposit(accountId, amount));
+    }
+
+    public CompletableFuture<Void> withdraw(String accountId, double amount) {
+        return run(OperationClass.POSTING, () -> transactionProcessor.withdraw(accountId, amount));
+    }
+
+    public CompletableFuture<Void> transfer(String fromAccountId, String toAccountId, double amount) {
+        return run(OperationClass.POSTING, () -> transactionProcessor.transfer(fromAccountId, toAccountId, amount));
+    }
+
+    public CompletableFuture<Double> getBalance(String accountId) {
+        return submit(OperationClass.READ, () -> accountManager.getBalance(accountId));
+    }
+
+    public CompletableFuture<List<Transaction>> getTransactionHistory(String accountId, int limit) {
+        return submit(OperationClass.READ, () -> {
+            accountManager.getAccount(accountId);
+            return reportingHub.getTransactionHistory(accountId, limit);
+        });
+    }
+
+    public CompletableFuture<Void> generateAccountSummaryReport() {
+        return run(OperationClass.REPORT, reportingHub::generateAccountSummaryReport);
+    }
+
+    public CompletableFuture<Void> generateTransactionHistoryReport(String accountId) {
+        return run(OperationClass.REPORT, () -> reportingHub.generateTransactionHistoryReport(accountId));
+    }
+
+    public CompletableFuture<Void> generateDailyTransactionReport() {
+        return run(OperationClass.REPORT, reportingHub::generateDailyTransactionReport);
+    }
+
+    public CompletableFuture<Void> checkAllBalanceAlerts() {
+        return run(OperationClass.ALERT, alertTracker::checkAllAccounts);
+    }
+
+    public <T> CompletableFuture<T> submit(OperationClass operationClass, BlockingCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Semaphore limit = permits.get(operationClass);
+
+        executors.get(operationClass).execute(() -> {
+            try {
+                limit.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+                return;
+            }
+            try {
+                future.complete(call.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                limit.release();
+            }
+        });
+        return future;
+    }
+
+    // Fire-and-forget: nobody holds the future, so a failing task is logged here instead.
+    public Executor executorFor(OperationClass operationClass) {
+        return task -> submit(operationClass, () -> {
+            task.run();
+            return null;
+        }).whenComplete((result, failure) -> {
+            if (failure != null) {
+                System.err.println("Background " + operationClass + " task failed: " + failure);
+            }
+        });
+    }
+
+    public int getWaitingCount(OperationClass operationClass) {
+        int waiting = permits.get(operationClass).getQueueLength();
+        if (executors.get(operationClass) instanceof ThreadPoolExecutor pool) {
+            waiting += pool.getQueue().size();
+        }
+        return waiting;
+    }
+
+    @Override
+    public void close() {
+        alertTracker.setAlertExecutor(Runnable::run);
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdown();
+        } else {
+            executors.values().forEach(ExecutorService::shutdown);
+        }
+    }
+
+    private CompletableFuture<Void> run(OperationClass operationClass, BlockingRunnable runnable) {
+        return submit(operationClass, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    @FunctionalInterface
+    private interface BlockingRunnable {
+        void run() throws Exception;
+    }
+
+    // Virtual threads are looked up reflectively so the project still builds and runs on JDK 17.
+    private static ExecutorService tryNewVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformPool(OperationClass operationClass, int threads) {
+        String name = "banking-" + operationClass.name().toLowerCase();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // For socket threads only: they block on client I/O and never touch JDBC, and each connection
+    // needs its reader and writer running at once, so on JDK 17 they fall back to a cached pool.
+    // Database work goes through the bounded per-class pools above.
+    public static ExecutorService newVirtualThreadExecutor() {
+        ExecutorService executor = tryNewVirtualThreadExecutor();
+        if (executor != null) {
+            return executor;
+        }
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "banking-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
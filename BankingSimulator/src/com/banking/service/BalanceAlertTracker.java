@@ -1,70 +1,124 @@
-package com.banking.service;
-
-import com.banking.exception.AccountNotFoundException;
-import com.banking.model.Account;
-
-public class BalanceAlertTracker {
-    private AccountManager accountManager;
-    private EmailService emailService;
-
-    public BalanceAlertTracker(AccountManager accountManager, EmailService emailService) {
-        this.accountManager = accountManager;
-        this.emailService = emailService;
-    }
-
-    public void checkAndAlert(String accountId) {
-        try {
-            Account account = accountManager.getAccount(accountId);
-
-            if (account.getBalance() < account.getMinBalanceThreshold()) {
-                sendLowBalanceAlert(account);
-            }
-
-        } catch (AccountNotFoundException e) {
-            System.err.println("Account not found for alert check: " + accountId);
-        }
-    }
-
-    private void sendLowBalanceAlert(Account account) {
-        String subject = "Low Balance Alert - Account " + account.getAccountId();
-        String body = String.format("""
-            Dear %s,
-            
-            This is an automated alert to inform you that your account balance has fallen below the minimum threshold.
-            
-            Account Details:
-            - Account ID: %s
-            - Current Balance: %.2f
-            - Minimum Threshold: %.2f
-            
-            Please ensure adequate funds are maintained in your account.
-            
-            Thank you,
-            Banking System
-            """,
-                account.getAccountHolderName(),
-                account.getAccountId(),
-                account.getBalance(),
-                account.getMinBalanceThreshold());
-
-        emailService.sendEmail(account.getEmail(), subject, body);
-
-        System.out.println("⚠️  Low balance alert sent to " + account.getEmail());
-    }
-
-    public void checkAllAccounts() {
-        System.out.println("\n========== Checking All Accounts for Low Balance ==========");
-
-        for (Account account : accountManager.getAllAccounts().values()) {
-            if (account.getBalance() < account.getMinBalanceThreshold()) {
-                System.out.printf("⚠️  Account %s is below threshold: Balance = %.2f, Threshold = %.2f%n",
-                        account.getAccountId(),
-                        account.getBalance(),
-                        account.getMinBalanceThreshold());
-                sendLowBalanceAlert(account);
-            }
-        }
-
-        System.out.println("===========================================================\n");
-    }
-}
+package com.banking.service;
+
+import com.banking.exception.AccountNotFoundException;
+import com.banking.model.Account;
+import com.banking.monitoring.AlertCheckEvent;
+
+import java.util.concurrent.Executor;
+
+public class BalanceAlertTracker {
+    private AccountManager accountManager;
+    private EmailService emailService;
+    private volatile Executor alertExecutor = Runnable::run;
+
+    public BalanceAlertTracker(AccountManager accountManager, EmailService emailService) {
+        this.accountManager = accountManager;
+        this.emailService = emailService;
+    }
+
+    public void setAlertExecutor(Executor alertExecutor) {
+        this.alertExecutor = alertExecutor;
+    }
+
+    public void checkAndAlert(String accountId) {
+        AlertCheckEvent event = new AlertCheckEvent(accountId);
+        event.begin();
+        AccountNotFoundException failure = null;
+        try {
+            Account account = accountManager.getAccount(accountId);
+
+            double balance = account.getBalance();
+            if (balance < account.getMinBalanceThreshold()) {
+                event.setBelowThreshold(true);
+                alertExecutor.execute(() -> sendLowBalanceAlert(account, balance));
+            }
+
+        } catch (AccountNotFoundException e) {
+            failure = e;
+            System.err.println("Account not found for alert check: " + accountId);
+        } finally {
+            if (event.shouldCommit()) {
+                event.record(failure);
+            }
+        }
+    }
+
+    private void sendLowBalanceAlert(Account account, double balance) {
+        String subject = "Low Balance Alert - Account " + account.getAccountId();
+        String body = String.format("""
+            Dear %s,
+            
+            This is an automated alert to inform you that your account balance has fallen below the minimum threshold.
+            
+            Account Details:
+            - Account ID: %s
+            - Current Balance: %.2f
+            - Minimum Threshold: %.2f
+            
+            Please ensure adequate funds are maintained in your account.
+            
+            Thank you,
+            Banking System
+            """,
+                account.getAccountHolderName(),
+                account.getAccountId(),
+                balance,
+                account.getMinBalanceThreshold());
+
+        emailService.sendEmail(account.getEmail(), subject, body);
+
+        System.out.println("⚠️  Low balance alert sent to " + account.getEmail());
+    }
+
+    public void sendVelocityAlert(String accountId, VelocityRule rule) {
+        try {
+            Account account = accountManager.getAccount(accountId);
+            alertExecutor.execute(() -> {
+                String subject = "Unusual Activity Alert - Account " + account.getAccountId();
+                String body = String.format("""
+                    Dear %s,
+                    
+                    We noticed unusual activity on your account that exceeded one of our monitoring limits.
+                    
+                    Account Details:
+                    - Account ID: %s
+                    - Rule: %s
+                    
+                    If you did not make these transactions, please contact us immediately.
+                    
+                    Thank you,
+                    Banking System
+                    """,
+                        account.getAccountHolderName(),
+                        account.getAccountId(),
+                        rule);
+
+                emailService.sendEmail(account.getEmail(), subject, body);
+
+                System.out.println("⚠️  Velocity alert sent to " + account.getEmail() + ": " + rule);
+            });
+
+        } catch (AccountNotFoundException e) {
+            System.err.println("Account not found for velocity alert: " + accountId);
+        }
+    }
+
+    public void checkAllAccounts() {
+        System.out.println("\n========== Checking All Accounts for Low Balance ==========");
+
+        try (AccountSnapshot snapshot = accountManager.snapshot()) {
+            for (Account account : snapshot.accounts()) {
+                double balance = snapshot.balanceOf(account);
+                if (balance < account.getMinBalanceThreshold()) {
+                    System.out.printf("⚠️  Account %s is below threshold: Balance = %.2f, Threshold = %.2f%n",
+                            account.getAccountId(),
+                            balance,
+                            account.getMinBalanceThreshold());
+                    sendLowBalanceAlert(account, balance);
+                }
+            }
+        }
+
+        System.out.println("===========================================================\n");
+    }
+}
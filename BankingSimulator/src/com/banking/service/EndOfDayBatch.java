@@ -0,0 +1,370 @@
+package com.banking.service;
+
+import com.banking.database.DatabaseConnection;
+import com.banking.database.PooledConnection;
+import com.banking.database.SqlStatement;
+import com.banking.exception.AccountNotFoundException;
+import com.banking.model.Account;
+import com.banking.model.TransactionRemark;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * End-of-day job over every account: daily interest accrual, a maintenance fee for accounts below
+ * their minimum threshold, and a low-balance alert sweep. Accounts are sorted by id and cut into
+ * chunks; chunks run in parallel on a fixed pool of worker threads, never more than the connection
+ * pool can serve, and each one commits its balance updates, ledger rows and a checkpoint row in a
+ * single batched transaction. Re-running the same date skips every account inside an already
+ * checkpointed range, so a crashed run resumes where it stopped. A run holds a database lock named
+ * after its date for its whole duration, so a second run of the same date fails instead of posting
+ * interest and fees twice.
+ */
+public class EndOfDayBatch {
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+    private static final String RUN_LOCK_PREFIX = "banking-eod-";
+
+    private final AccountManager accountManager;
+    private final BalanceAlertTracker alertTracker;
+    private final double annualInterestRate;
+    private final double maintenanceFee;
+    private final int chunkSize;
+    private final int parallelism;
+
+    public EndOfDayBatch(AccountManager accountManager, BalanceAlertTracker alertTracker,
+                         double annualInterestRate, double maintenanceFee, int chunkSize, int parallelism) {
+        if (chunkSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Chunk size and parallelism must be positive");
+        }
+        this.accountManager = accountManager;
+        this.alertTracker = alertTracker;
+        this.annualInterestRate = annualInterestRate;
+        this.maintenanceFee = maintenanceFee;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    // Every chunk holds a pooled connection while it runs, so more workers than connections only queue.
+    public static EndOfDayBatch withDefaults(AccountManager accountManager, BalanceAlertTracker alertTracker) {
+        int parallelism = Math.min(Runtime.getRuntime().availableProcessors(), DatabaseConnection.getPoolSize());
+        return new EndOfDayBatch(accountManager, alertTracker, 0.035, 25.0, DEFAULT_CHUNK_SIZE, parallelism);
+    }
+
+    public Summary run(LocalDate runDate) throws SQLException {
+        String lockName = RUN_LOCK_PREFIX + runDate;
+        try (PooledConnection lockConn = DatabaseConnection.borrow()) {
+            if (!acquireRunLock(lockConn, lockName)) {
+                throw new SQLException("End-of-day run for " + runDate + " is already in progress");
+            }
+            try {
+                return runLocked(runDate);
+            } finally {
+                releaseRunLock(lockConn, lockName);
+            }
+        }
+    }
+
+    private Summary runLocked(LocalDate runDate) throws SQLException {
+        long start = System.nanoTime();
+        List<String[]> completedRanges = loadCompletedRanges(runDate);
+
+        // Interest and fees are assessed on the balances as of the cut-off, not on whatever
+        // postings land while the batch is running.
+        try (AccountSnapshot cutoff = accountManager.snapshot()) {
+            List<Account> pending = new ArrayList<>();
+            int skipped = 0;
+            List<String> accountIds = cutoff.getAccountIds();
+            Collections.sort(accountIds);
+            for (String accountId : accountIds) {
+                if (isCompleted(completedRanges, accountId)) {
+                    skipped++;
+                    continue;
+                }
+                try {
+                    pending.add(cutoff.getAccount(accountId));
+                } catch (AccountNotFoundException e) {
+                    // Listed by the same snapshot, so this cannot happen.
+                }
+            }
+
+            List<List<Account>> chunks = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i += chunkSize) {
+                chunks.add(pending.subList(i, Math.min(i + chunkSize, pending.size())));
+            }
+
+            Summary summary = new Summary(runDate, skipped);
+            // Chunks block on JDBC, and the run lock already holds one pooled connection.
+            int workers = Math.max(1, Math.min(parallelism, DatabaseConnection.getPoolSize() - 1));
+            ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+                Thread thread = new Thread(r, "end-of-day-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<?>> results = new ArrayList<>();
+                for (List<Account> chunk : chunks) {
+                    results.add(pool.submit(() -> processChunk(chunk, runDate, cutoff, summary)));
+                }
+                awaitAll(results);
+            } finally {
+                pool.shutdown();
+            }
+            summary.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            return summary;
+        }
+    }
+
+    private boolean acquireRunLock(PooledConnection conn, String lockName) throws SQLException {
+        PreparedStatement pstmt = conn.prepare(SqlStatement.ACQUIRE_BATCH_RUN_LOCK);
+        pstmt.setString(1, lockName);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() && rs.getInt(1) == 1;
+        }
+    }
+
+    private void releaseRunLock(PooledConnection conn, String lockName) {
+        try {
+            PreparedStatement pstmt = conn.prepare(SqlStatement.RELEASE_BATCH_RUN_LOCK);
+            pstmt.setString(1, lockName);
+            pstmt.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("Error releasing end-of-day lock " + lockName + ": " + e.getMessage());
+        }
+    }
+
+    // Waits for every chunk, so no worker is still posting when the run returns, then rethrows
+    // the first unexpected failure. Failed chunks that only hit SQL errors are counted, not thrown.
+    private void awaitAll(List<Future<?>> results) {
+        RuntimeException runtimeFailure = null;
+        Error error = null;
+        boolean interrupted = false;
+        for (Future<?> result : results) {
+            while (true) {
+                try {
+                    result.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Error && error == null) {
+                        error = (Error) cause;
+                    } else if (cause instanceof RuntimeException && runtimeFailure == null) {
+                        runtimeFailure = (RuntimeException) cause;
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (error != null) {
+            throw error;
+        }
+        if (runtimeFailure != null) {
+            throw runtimeFailure;
+        }
+    }
+
+    private List<String[]> loadCompletedRanges(LocalDate runDate) throws SQLException {
+        List<String[]> ranges = new ArrayList<>();
+        try (PooledConnection conn = DatabaseConnection.borrow()) {
+            PreparedStatement pstmt = conn.prepare(SqlStatement.SELECT_BATCH_CHECKPOINTS);
+            pstmt.setDate(1, Date.valueOf(runDate));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ranges.add(new String[] { rs.getString("chunk_start"), rs.getString("chunk_end") });
+                }
+            }
+        }
+        return ranges;
+    }
+
+    private boolean isCompleted(List<String[]> completedRanges, String accountId) {
+        for (String[] range : completedRanges) {
+            if (accountId.compareTo(range[0]) >= 0 && accountId.compareTo(range[1]) <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void processChunk(List<Account> chunk, LocalDate runDate, AccountSnapshot cutoff, Summary summary) {
+        int size = chunk.size();
+        double[] deltas = new double[size];
+        double[] feeHolds = new double[size];
+        int interestPostings = 0;
+        int feePostings = 0;
+        double interestTotal = 0;
+        double feeTotal = 0;
+
+        String chunkStart = chunk.get(0).getAccountId();
+        String chunkEnd = chunk.get(size - 1).getAccountId();
+
+        try (PooledConnection conn = DatabaseConnection.borrow()) {
+            PreparedStatement adjust = conn.prepare(SqlStatement.ADJUST_BALANCE);
+            PreparedStatement insert = conn.prepare(SqlStatement.INSERT_TRANSACTION);
+
+            conn.begin();
+            try {
+                for (int i = 0; i < size; i++) {
+                    Account account = chunk.get(i);
+                    double balance = cutoff.balanceOf(account);
+
+                    double interest = balance > 0 ? toCents(balance * annualInterestRate / 365) : 0;
+                    if (interest > 0) {
+                        addLedgerRow(insert, account.getAccountId(), "INTEREST", interest,
+                                TransactionRemark.INTEREST_ACCRUAL);
+                        deltas[i] += interest;
+                        interestPostings++;
+                        interestTotal += interest;
+                    }
+
+                    // The fee never takes an account below zero or eats into funds already on hold. It is
+                    // held until the chunk commits, so a withdrawal in the meantime cannot spend it too.
+                    if (balance < account.getMinBalanceThreshold()) {
+                        double fee = toCents(Math.min(maintenanceFee, account.getAvailableBalance()));
+                        if (fee > 0 && account.tryHold(fee)) {
+                            feeHolds[i] = fee;
+                            addLedgerRow(insert, account.getAccountId(), "FEE", fee,
+                                    TransactionRemark.MAINTENANCE_FEE);
+                            deltas[i] -= fee;
+                            feePostings++;
+                            feeTotal += fee;
+                        }
+                    }
+
+                    if (deltas[i] != 0) {
+                        adjust.setDouble(1, deltas[i]);
+                        adjust.setString(2, account.getAccountId());
+                        adjust.addBatch();
+                    }
+                }
+
+                adjust.executeBatch();
+                insert.executeBatch();
+
+                PreparedStatement checkpoint = conn.prepare(SqlStatement.INSERT_BATCH_CHECKPOINT);
+                checkpoint.setDate(1, Date.valueOf(runDate));
+                checkpoint.setString(2, chunkStart);
+                checkpoint.setString(3, chunkEnd);
+                checkpoint.setInt(4, size);
+                checkpoint.executeUpdate();
+
+                conn.commit();
+            } catch (SQLException e) {
+                // The statements stay cached on this connection, so leave no queued rows behind.
+                adjust.clearBatch();
+                insert.clearBatch();
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            releaseFeeHolds(chunk, feeHolds);
+            summary.failedChunks.incrementAndGet();
+            System.err.printf("End-of-day chunk %s..%s failed, will resume on rerun: %s%n",
+                    chunkStart, chunkEnd, e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            releaseFeeHolds(chunk, feeHolds);
+            throw e;
+        }
+
+        for (int i = 0; i < size; i++) {
+            String accountId = chunk.get(i).getAccountId();
+            if (deltas[i] != 0) {
+                try {
+                    accountManager.applyCachedBalanceDelta(accountId, deltas[i]);
+                } catch (AccountNotFoundException e) {
+                    System.err.println("Account not found after end-of-day posting: " + accountId);
+                }
+            }
+            if (feeHolds[i] > 0) {
+                chunk.get(i).releaseHold(feeHolds[i]);
+            }
+            alertTracker.checkAndAlert(accountId);
+        }
+
+        summary.accountsProcessed.addAndGet(size);
+        summary.completedChunks.incrementAndGet();
+        summary.interestPostings.addAndGet(interestPostings);
+        summary.feePostings.addAndGet(feePostings);
+        summary.interestTotal.add(interestTotal);
+        summary.feeTotal.add(feeTotal);
+    }
+
+    private void releaseFeeHolds(List<Account> chunk, double[] feeHolds) {
+        for (int i = 0; i < feeHolds.length; i++) {
+            if (feeHolds[i] > 0) {
+                chunk.get(i).releaseHold(feeHolds[i]);
+            }
+        }
+    }
+
+    private void addLedgerRow(PreparedStatement insert, String accountId, String type, double amount,
+                              TransactionRemark remark) throws SQLException {
+        insert.setString(1, accountId);
+        insert.setString(2, type);
+        insert.setDouble(3, amount);
+        insert.setString(4, null);
+        insert.setString(5, "SUCCESS");
+        insert.setString(6, remark.getText());
+        insert.addBatch();
+    }
+
+    private static double toCents(double amount) {
+        return Math.floor(amount * 100) / 100;
+    }
+
+    public static final class Summary {
+        private final LocalDate runDate;
+        private final int accountsSkipped;
+        private final AtomicInteger accountsProcessed = new AtomicInteger();
+        private final AtomicInteger completedChunks = new AtomicInteger();
+        private final AtomicInteger failedChunks = new AtomicInteger();
+        private final AtomicInteger interestPostings = new AtomicInteger();
+        private final AtomicInteger feePostings = new AtomicInteger();
+        private final DoubleAdder interestTotal = new DoubleAdder();
+        private final DoubleAdder feeTotal = new DoubleAdder();
+        private long elapsedMillis;
+
+        private Summary(LocalDate runDate, int accountsSkipped) {
+            this.runDate = runDate;
+            this.accountsSkipped = accountsSkipped;
+        }
+
+        public LocalDate getRunDate() { return runDate; }
+        public int getAccountsSkipped() { return accountsSkipped; }
+        public int getAccountsProcessed() { return accountsProcessed.get(); }
+        public int getCompletedChunks() { return completedChunks.get(); }
+        public int getFailedChunks() { return failedChunks.get(); }
+        public int getInterestPostings() { return interestPostings.get(); }
+        public int getFeePostings() { return feePostings.get(); }
+        public double getInterestTotal() { return interestTotal.sum(); }
+        public double getFeeTotal() { return feeTotal.sum(); }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public boolean isComplete() { return failedChunks.get() == 0; }
+
+        @Override
+        public String toString() {
+            return String.format("End-of-day %s: %d accounts in %d chunks (%d already done, %d chunks failed), "
+                            + "%d interest postings totalling %.2f, %d fees totalling %.2f, %d ms",
+                    runDate, getAccountsProcessed(), getCompletedChunks(), accountsSkipped, getFailedChunks(),
+                    getInterestPostings(), getInterestTotal(), getFeePostings(), getFeeTotal(), elapsedMillis);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.banking.service;
+
+public final class EpochClock {
+    private static final long EPOCH_OFFSET_NANOS = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+
+    private EpochClock() {
+    }
+
+    // Wall-clock time in nanoseconds since the epoch without allocating an Instant or LocalDateTime.
+    public static long nowNanos() {
+        return EPOCH_OFFSET_NANOS + System.nanoTime();
+    }
+}
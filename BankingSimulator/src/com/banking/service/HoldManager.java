@@ -0,0 +1,137 @@
+package com.banking.service;
+
+import com.banking.model.Account;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reserves funds in memory ahead of a debit so the account is never locked across the
+ * database round-trip. A hold is identified by a handle; it is either confirmed once the
+ * debit has been persisted, voided when persisting fails, or expired by the sweeper.
+ */
+public class HoldManager {
+    public static final long NO_HOLD = 0L;
+
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final long DEFAULT_TTL_MILLIS = 30_000;
+    private static final long FREE = 0L;
+    private static final long BUSY = -1L;
+    private static final int SLOT_BITS = 20;
+
+    private final Slot[] slots;
+    private final int slotMask;
+    private final long ttlNanos;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ScheduledExecutorService expiryScheduler;
+
+    public HoldManager() {
+        this(DEFAULT_CAPACITY, DEFAULT_TTL_MILLIS);
+    }
+
+    public HoldManager(int capacity, long ttlMillis) {
+        if (capacity <= 0 || capacity > (1 << SLOT_BITS) || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Hold capacity must be a power of two up to " + (1 << SLOT_BITS));
+        }
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.slotMask = capacity - 1;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+
+        this.expiryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMillis = Math.max(100, ttlMillis / 10);
+        expiryScheduler.scheduleAtFixedRate(this::expireHolds, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public long placeHold(Account account, double amount) {
+        if (!account.tryHold(amount)) {
+            return NO_HOLD;
+        }
+
+        int start = cursor.getAndIncrement();
+        for (int i = 0; i <= slotMask; i++) {
+            int index = (start + i) & slotMask;
+            Slot slot = slots[index];
+            if (slot.owner.get() == FREE && slot.owner.compareAndSet(FREE, BUSY)) {
+                long handle = (sequence.incrementAndGet() << SLOT_BITS) | index;
+                slot.account = account;
+                slot.amount = amount;
+                slot.expiresAt = System.nanoTime() + ttlNanos;
+                slot.owner.set(handle);
+                return handle;
+            }
+        }
+
+        account.releaseHold(amount);
+        throw new IllegalStateException("No free hold slots (capacity " + slots.length + ")");
+    }
+
+    public boolean confirm(long handle) {
+        return release(handle);
+    }
+
+    public boolean voidHold(long handle) {
+        return release(handle);
+    }
+
+    public int getActiveHoldCount() {
+        int count = 0;
+        for (Slot slot : slots) {
+            if (slot.owner.get() > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void shutdown() {
+        expiryScheduler.shutdownNow();
+    }
+
+    private boolean release(long handle) {
+        if (handle <= 0) {
+            return false;
+        }
+        Slot slot = slots[(int) (handle & slotMask)];
+        if (!slot.owner.compareAndSet(handle, BUSY)) {
+            return false;
+        }
+        freeSlot(slot);
+        return true;
+    }
+
+    private void freeSlot(Slot slot) {
+        slot.account.releaseHold(slot.amount);
+        slot.account = null;
+        slot.owner.set(FREE);
+    }
+
+    private void expireHolds() {
+        long now = System.nanoTime();
+        for (Slot slot : slots) {
+            long handle = slot.owner.get();
+            if (handle > 0 && now - slot.expiresAt > 0 && slot.owner.compareAndSet(handle, BUSY)) {
+                System.err.printf("Hold expired on account %s for %.2f%n",
+                        slot.account.getAccountId(), slot.amount);
+                freeSlot(slot);
+            }
+        }
+    }
+
+    private static final class Slot {
+        private final AtomicLong owner = new AtomicLong(FREE);
+        private Account account;
+        private double amount;
+        private long expiresAt;
+    }
+}
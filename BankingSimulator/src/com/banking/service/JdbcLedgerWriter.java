@@ -0,0 +1,91 @@
+package com.banking.service;
+
+import com.banking.database.DatabaseConnection;
+import com.banking.database.PooledConnection;
+import com.banking.database.SqlStatement;
+import com.banking.model.LedgerEntry;
+import com.banking.monitoring.LedgerWriteEvent;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+public class JdbcLedgerWriter implements LedgerWriter {
+    private final AccountManager accountManager;
+
+    public JdbcLedgerWriter(AccountManager accountManager) {
+        this.accountManager = accountManager;
+    }
+
+    @Override
+    public void post(LedgerEntry entry, double balanceDelta) throws SQLException {
+        try (PooledConnection conn = DatabaseConnection.borrow()) {
+            conn.begin();
+            try {
+                accountManager.persistBalanceDelta(conn, entry.getAccountId(), balanceDelta);
+                insert(conn, entry);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void postTransfer(LedgerEntry debit, LedgerEntry credit) throws SQLException {
+        try (PooledConnection conn = DatabaseConnection.borrow()) {
+            conn.begin();
+            try {
+                // Lock the two rows in account id order so opposing transfers cannot deadlock.
+                if (debit.getAccountId().compareTo(credit.getAccountId()) < 0) {
+                    accountManager.persistBalanceDelta(conn, debit.getAccountId(), -debit.getAmount());
+                    accountManager.persistBalanceDelta(conn, credit.getAccountId(), credit.getAmount());
+                } else {
+                    accountManager.persistBalanceDelta(conn, credit.getAccountId(), credit.getAmount());
+                    accountManager.persistBalanceDelta(conn, debit.getAccountId(), -debit.getAmount());
+                }
+                insert(conn, debit);
+                insert(conn, credit);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                System.err.println("Transaction rolled back due to error");
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void log(LedgerEntry entry) throws SQLException {
+        try (PooledConnection conn = DatabaseConnection.borrow()) {
+            insert(conn, entry);
+        }
+    }
+
+    private void insert(PooledConnection conn, LedgerEntry entry) throws SQLException {
+        LedgerWriteEvent event = new LedgerWriteEvent(entry.getAccountId(), entry.getTransactionType(),
+                entry.getStatus());
+        event.begin();
+        SQLException failure = null;
+        try {
+            PreparedStatement pstmt = conn.prepare(SqlStatement.INSERT_POSTED_TRANSACTION);
+            pstmt.setString(1, entry.getAccountId());
+            pstmt.setString(2, entry.getTransactionType());
+            pstmt.setDouble(3, entry.getAmount());
+            pstmt.setString(4, entry.getRelatedAccountId());
+            pstmt.setString(5, entry.getStatus());
+            pstmt.setString(6, entry.getRemark().getText());
+            pstmt.setLong(7, entry.getTimestampNanos());
+
+            pstmt.executeUpdate();
+            DatabaseConnection.recordWrite(entry.getAccountId());
+        } catch (SQLException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.record(failure);
+            }
+        }
+    }
+}
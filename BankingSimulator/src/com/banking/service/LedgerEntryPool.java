@@ -0,0 +1,52 @@
+package com.banking.service;
+
+import com.banking.model.LedgerEntry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Fixed pool of reusable ledger records claimed with a CAS. When every record is in use the pool
+ * hands out an unpooled one rather than blocking, so exhaustion costs an allocation, not latency.
+ */
+public class LedgerEntryPool {
+    private static final int UNPOOLED = -1;
+
+    private final LedgerEntry[] entries;
+    private final AtomicIntegerArray inUse;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final int mask;
+
+    public LedgerEntryPool(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Pool capacity must be a power of two");
+        }
+        this.entries = new LedgerEntry[capacity];
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new LedgerEntry(i);
+        }
+        this.inUse = new AtomicIntegerArray(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public LedgerEntry acquire() {
+        int start = cursor.getAndIncrement();
+        for (int i = 0; i <= mask; i++) {
+            int index = (start + i) & mask;
+            if (inUse.get(index) == 0 && inUse.compareAndSet(index, 0, 1)) {
+                return entries[index];
+            }
+        }
+        return new LedgerEntry(UNPOOLED);
+    }
+
+    public void release(LedgerEntry entry) {
+        if (entry == null) {
+            return;
+        }
+        entry.clear();
+        if (entry.getPoolIndex() != UNPOOLED) {
+            inUse.set(entry.getPoolIndex(), 0);
+        }
+    }
+}
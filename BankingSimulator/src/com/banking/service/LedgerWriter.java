@@ -0,0 +1,17 @@
+package com.banking.service;
+
+import com.banking.model.LedgerEntry;
+
+import java.sql.SQLException;
+
+/**
+ * Durable side of a posting. Each call must apply the balance change(s) and the ledger row(s)
+ * atomically; the processor only touches the in-memory balances after it returns.
+ */
+public interface LedgerWriter {
+    void post(LedgerEntry entry, double balanceDelta) throws SQLException;
+
+    void postTransfer(LedgerEntry debit, LedgerEntry credit) throws SQLException;
+
+    void log(LedgerEntry entry) throws SQLException;
+}
@@ -0,0 +1,413 @@
+package com.banking.service;
+
+import com.banking.database.DatabaseConnection;
+import com.banking.database.PooledConnection;
+import com.banking.database.SqlStatement;
+import com.banking.model.Account;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks that every stored balance equals the signed sum of the account's SUCCESS ledger rows,
+ * and that the in-memory cache agrees with the database. The account key space is cut into
+ * ranges that are reconciled in parallel. Each range streams the accounts and its per-account
+ * ledger totals, both in key order, through server-side cursors inside one consistent-snapshot
+ * read transaction, then merge-joins them. Memory therefore stays bounded however large the
+ * ledger is, and nothing is locked against postings.
+ */
+public class ReconciliationEngine {
+    public enum DiscrepancyKind {
+        LEDGER_MISMATCH, CACHE_MISMATCH, MISSING_FROM_CACHE, MISSING_FROM_DATABASE, ORPHAN_LEDGER
+    }
+
+    private static final String REPORT_DIR = "reports/";
+    private static final int MAX_REPORTED_DISCREPANCIES = 10_000;
+    private static final int MAX_CACHE_SUSPECTS = 100_000;
+    private static final int RECHECK_ATTEMPTS = 3;
+    private static final long RECHECK_DELAY_MILLIS = 50;
+
+    private final AccountManager accountManager;
+    private final int partitions;
+    private final int parallelism;
+
+    public ReconciliationEngine(AccountManager accountManager, int partitions, int parallelism) {
+        if (partitions <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Partitions and parallelism must be positive");
+        }
+        this.accountManager = accountManager;
+        this.partitions = partitions;
+        this.parallelism = parallelism;
+    }
+
+    public static ReconciliationEngine withDefaults(AccountManager accountManager) {
+        int parallelism = Math.min(Runtime.getRuntime().availableProcessors(), DatabaseConnection.getPoolSize());
+        return new ReconciliationEngine(accountManager, parallelism * 4, parallelism);
+    }
+
+    public Result run() throws SQLException {
+        long start = System.nanoTime();
+        Result result = new Result();
+
+        try (AccountSnapshot snapshot = accountManager.snapshot()) {
+            List<String> lowerBounds = loadPartitionBounds(snapshot.size());
+            Set<Account> seen = ConcurrentHashMap.newKeySet();
+            Set<String> cacheSuspects = ConcurrentHashMap.newKeySet();
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new PartitionRange(lowerBounds, 0, lowerBounds.size(), seen, cacheSuspects, result));
+            } finally {
+                pool.shutdown();
+            }
+
+            for (String accountId : cacheSuspects) {
+                recheckCache(accountId, result);
+            }
+
+            // A partition that failed never marked its accounts as seen, so only look for
+            // accounts missing from the database when every range was read.
+            if (result.failedPartitions.get() == 0) {
+                for (Account account : snapshot.accounts()) {
+                    if (!seen.contains(account) && readBalance(account.getAccountId()) == null) {
+                        result.add(new Discrepancy(DiscrepancyKind.MISSING_FROM_DATABASE, account.getAccountId(),
+                                null, null, account.getBalance()));
+                    }
+                }
+            }
+        }
+
+        result.partitions = partitions;
+        result.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return result;
+    }
+
+    // Range starts are taken from the database's own key order so the range predicates, the
+    // ORDER BY and the merge below all agree on the collation.
+    private List<String> loadPartitionBounds(int expectedAccounts) throws SQLException {
+        int perPartition = Math.max(1, (expectedAccounts + partitions - 1) / partitions);
+        List<String> lowerBounds = new ArrayList<>();
+        lowerBounds.add("");
+
+        try (Connection conn = DatabaseConnection.openStreamingConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SqlStatement.SELECT_ACCOUNT_KEYS.getSql());
+             ResultSet rs = pstmt.executeQuery()) {
+            long row = 0;
+            while (rs.next()) {
+                if (row > 0 && row % perPartition == 0) {
+                    lowerBounds.add(rs.getString(1));
+                }
+                row++;
+            }
+        }
+        return lowerBounds;
+    }
+
+    private void reconcilePartition(String lower, String upper, Set<Account> seen, Set<String> cacheSuspects,
+                                    Result result) throws SQLException {
+        Map<String, Account> cache = accountManager.getAllAccounts();
+
+        try (Connection conn = DatabaseConnection.openStreamingConnection()) {
+            conn.setReadOnly(true);
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            conn.setAutoCommit(false);
+            try (Statement begin = conn.createStatement()) {
+                begin.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+            }
+
+            try (PreparedStatement accountQuery = conn.prepareStatement(upper == null
+                         ? SqlStatement.SELECT_ACCOUNT_TAIL.getSql() : SqlStatement.SELECT_ACCOUNT_RANGE.getSql());
+                 PreparedStatement ledgerQuery = conn.prepareStatement(upper == null
+                         ? SqlStatement.SELECT_LEDGER_TOTALS_TAIL.getSql()
+                         : SqlStatement.SELECT_LEDGER_TOTALS_RANGE.getSql())) {
+                bindRange(accountQuery, lower, upper, 1);
+                // The ledger query filters the hot table and the archived daily summaries separately.
+                bindRange(ledgerQuery, lower, upper, 2);
+
+                try (ResultSet accounts = accountQuery.executeQuery();
+                     ResultSet ledger = ledgerQuery.executeQuery()) {
+                    mergeJoin(accounts, ledger, cache, seen, cacheSuspects, result);
+                }
+            }
+            conn.commit();
+        }
+    }
+
+    // Every ledger key references an account (foreign key) and both cursors share one order, so
+    // a ledger key that differs from the current account always belongs to a later account.
+    private void mergeJoin(ResultSet accounts, ResultSet ledger, Map<String, Account> cache, Set<Account> seen,
+                           Set<String> cacheSuspects, Result result) throws SQLException {
+        boolean hasLedger = ledger.next();
+        while (accounts.next()) {
+            String accountId = accounts.getString("account_id");
+            BigDecimal balance = accounts.getBigDecimal("balance");
+
+            BigDecimal ledgerTotal = BigDecimal.ZERO;
+            if (hasLedger && accountId.equals(ledger.getString("account_id"))) {
+                ledgerTotal = ledger.getBigDecimal("ledger_total");
+                result.ledgerEntries.addAndGet(ledger.getLong("entries"));
+                hasLedger = ledger.next();
+            }
+            result.accountsChecked.incrementAndGet();
+
+            Account cached = cache.get(accountId);
+            Double cachedBalance = cached != null ? cached.getBalance() : null;
+
+            if (balance.compareTo(ledgerTotal) != 0) {
+                result.add(new Discrepancy(DiscrepancyKind.LEDGER_MISMATCH, accountId, balance, ledgerTotal,
+                        cachedBalance));
+            }
+
+            if (cached != null) {
+                seen.add(cached);
+            }
+            if ((cached == null || !sameCents(cachedBalance, balance))
+                    && cacheSuspects.size() < MAX_CACHE_SUSPECTS) {
+                cacheSuspects.add(accountId);
+            }
+        }
+
+        while (hasLedger) {
+            result.add(new Discrepancy(DiscrepancyKind.ORPHAN_LEDGER, ledger.getString("account_id"), null,
+                    ledger.getBigDecimal("ledger_total"), null));
+            hasLedger = ledger.next();
+        }
+    }
+
+    private void bindRange(PreparedStatement pstmt, String lower, String upper, int times) throws SQLException {
+        int index = 1;
+        for (int i = 0; i < times; i++) {
+            pstmt.setString(index++, lower);
+            if (upper != null) {
+                pstmt.setString(index++, upper);
+            }
+        }
+    }
+
+    // Re-reads both sides a few times: a posting may sit between its commit and its cache update,
+    // and a new account is committed before it is cached.
+    private void recheckCache(String accountId, Result result) throws SQLException {
+        Account account = null;
+        BigDecimal stored = null;
+        for (int attempt = 0; attempt < RECHECK_ATTEMPTS; attempt++) {
+            account = accountManager.getAllAccounts().get(accountId);
+            stored = readBalance(accountId);
+            if (stored == null
+                    || account != null && sameCents(account.getBalance(), stored)) {
+                return;
+            }
+            try {
+                Thread.sleep(RECHECK_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (account == null) {
+            result.add(new Discrepancy(DiscrepancyKind.MISSING_FROM_CACHE, accountId, stored, null, null));
+        } else {
+            result.add(new Discrepancy(DiscrepancyKind.CACHE_MISMATCH, accountId, stored, null, account.getBalance()));
+        }
+    }
+
+    // The column holds cents, as MySQL rounded them on write; the cache keeps the unrounded double.
+    private static boolean sameCents(double cached, BigDecimal stored) {
+        return BigDecimal.valueOf(cached).setScale(2, RoundingMode.HALF_UP)
+                .compareTo(stored.setScale(2, RoundingMode.HALF_UP)) == 0;
+    }
+
+    private BigDecimal readBalance(String accountId) throws SQLException {
+        try (PooledConnection conn = DatabaseConnection.borrow()) {
+            PreparedStatement pstmt = conn.prepare(SqlStatement.SELECT_BALANCE);
+            pstmt.setString(1, accountId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getBigDecimal("balance") : null;
+            }
+        }
+    }
+
+    public String writeReport(Result result) throws IOException {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String filename = REPORT_DIR + "reconciliation_" + timestamp + ".txt";
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
+            writer.write("========================================\n");
+            writer.write("      RECONCILIATION REPORT\n");
+            writer.write("========================================\n");
+            writer.write("Generated: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) + "\n");
+            writer.write(String.format("Partitions: %d (%d failed)\n", result.partitions, result.getFailedPartitions()));
+            writer.write(String.format("Accounts checked: %,d\n", result.getAccountsChecked()));
+            writer.write(String.format("Ledger entries summed: %,d\n", result.getLedgerEntries()));
+            writer.write(String.format("Elapsed: %,d ms\n\n", result.elapsedMillis));
+
+            for (DiscrepancyKind kind : DiscrepancyKind.values()) {
+                writer.write(String.format("%-22s %,d\n", kind, result.getCount(kind)));
+            }
+            writer.write("\n");
+
+            writer.write(String.format("%-22s %-15s %18s %18s %18s\n",
+                    "Kind", "Account ID", "DB Balance", "Ledger Total", "Cached Balance"));
+            writer.write("-------------------------------------------------------------------------------------------\n");
+            for (Discrepancy discrepancy : result.getDiscrepancies()) {
+                writer.write(String.format("%-22s %-15s %18s %18s %18s\n",
+                        discrepancy.getKind(),
+                        discrepancy.getAccountId(),
+                        format(discrepancy.getDatabaseBalance()),
+                        format(discrepancy.getLedgerTotal()),
+                        discrepancy.getCachedBalance() != null
+                                ? String.format("%,.2f", discrepancy.getCachedBalance()) : "-"));
+            }
+            if (result.getDiscrepancyCount() > result.getDiscrepancies().size()) {
+                writer.write(String.format("... %,d more not listed\n",
+                        result.getDiscrepancyCount() - result.getDiscrepancies().size()));
+            }
+            writer.write("-------------------------------------------------------------------------------------------\n");
+            writer.write("========================================\n");
+        }
+        return filename;
+    }
+
+    private static String format(BigDecimal amount) {
+        return amount != null ? String.format("%,.2f", amount) : "-";
+    }
+
+    private final class PartitionRange extends RecursiveAction {
+        private final List<String> lowerBounds;
+        private final int from;
+        private final int to;
+        private final Set<Account> seen;
+        private final Set<String> cacheSuspects;
+        private final Result result;
+
+        PartitionRange(List<String> lowerBounds, int from, int to, Set<Account> seen, Set<String> cacheSuspects,
+                       Result result) {
+            this.lowerBounds = lowerBounds;
+            this.from = from;
+            this.to = to;
+            this.seen = seen;
+            this.cacheSuspects = cacheSuspects;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) {
+                    String lower = lowerBounds.get(from);
+                    String upper = from + 1 < lowerBounds.size() ? lowerBounds.get(from + 1) : null;
+                    try {
+                        reconcilePartition(lower, upper, seen, cacheSuspects, result);
+                    } catch (SQLException e) {
+                        result.failedPartitions.incrementAndGet();
+                        System.err.printf("Reconciliation of range starting at '%s' failed: %s%n", lower, e.getMessage());
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PartitionRange(lowerBounds, from, mid, seen, cacheSuspects, result),
+                    new PartitionRange(lowerBounds, mid, to, seen, cacheSuspects, result));
+        }
+    }
+
+    public static final class Discrepancy {
+        private final DiscrepancyKind kind;
+        private final String accountId;
+        private final BigDecimal databaseBalance;
+        private final BigDecimal ledgerTotal;
+        private final Double cachedBalance;
+
+        Discrepancy(DiscrepancyKind kind, String accountId, BigDecimal databaseBalance, BigDecimal ledgerTotal,
+                    Double cachedBalance) {
+            this.kind = kind;
+            this.accountId = accountId;
+            this.databaseBalance = databaseBalance;
+            this.ledgerTotal = ledgerTotal;
+            this.cachedBalance = cachedBalance;
+        }
+
+        public DiscrepancyKind getKind() { return kind; }
+        public String getAccountId() { return accountId; }
+        public BigDecimal getDatabaseBalance() { return databaseBalance; }
+        public BigDecimal getLedgerTotal() { return ledgerTotal; }
+        public Double getCachedBalance() { return cachedBalance; }
+    }
+
+    public static final class Result {
+        private final AtomicLong accountsChecked = new AtomicLong();
+        private final AtomicLong ledgerEntries = new AtomicLong();
+        private final AtomicInteger failedPartitions = new AtomicInteger();
+        private final AtomicLong[] counts = new AtomicLong[DiscrepancyKind.values().length];
+        private final List<Discrepancy> discrepancies = new ArrayList<>();
+        private int partitions;
+        private long elapsedMillis;
+
+        private Result() {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new AtomicLong();
+            }
+        }
+
+        // Only the first few thousand are kept for the report; the counts cover all of them.
+        private void add(Discrepancy discrepancy) {
+            counts[discrepancy.getKind().ordinal()].incrementAndGet();
+            synchronized (discrepancies) {
+                if (discrepancies.size() < MAX_REPORTED_DISCREPANCIES) {
+                    discrepancies.add(discrepancy);
+                }
+            }
+        }
+
+        public long getAccountsChecked() { return accountsChecked.get(); }
+        public long getLedgerEntries() { return ledgerEntries.get(); }
+        public int getFailedPartitions() { return failedPartitions.get(); }
+        public int getPartitions() { return partitions; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public long getCount(DiscrepancyKind kind) { return counts[kind.ordinal()].get(); }
+
+        public long getDiscrepancyCount() {
+            long total = 0;
+            for (AtomicLong count : counts) {
+                total += count.get();
+            }
+            return total;
+        }
+
+        public List<Discrepancy> getDiscrepancies() {
+            synchronized (discrepancies) {
+                return new ArrayList<>(discrepancies);
+            }
+        }
+
+        public boolean isClean() {
+            return getDiscrepancyCount() == 0 && failedPartitions.get() == 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Reconciliation: %,d accounts, %,d ledger entries, %d partitions (%d failed), "
+                            + "%,d discrepancies, %d ms",
+                    getAccountsChecked(), getLedgerEntries(), partitions, getFailedPartitions(),
+                    getDiscrepancyCount(), elapsedMillis);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.banking.service;
+
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Epoch counter behind account snapshots. Balance writers register under the current epoch;
+ * opening a snapshot bumps the epoch and waits only for writers still registered under the old
+ * one, so the snapshot sees every write tagged with its epoch or earlier and none after it.
+ * Writers of consecutive epochs count into alternating slots, which is all the draining needs.
+ */
+public class SnapshotEpochs {
+    private final AtomicLong epoch = new AtomicLong(1);
+    private final AtomicLongArray activeWriters = new AtomicLongArray(2);
+    private final TreeMap<Long, Integer> openSnapshots = new TreeMap<>();
+    private volatile long oldestOpen = Long.MAX_VALUE;
+
+    public long enterWrite() {
+        while (true) {
+            long current = epoch.get();
+            int slot = (int) (current & 1);
+            activeWriters.incrementAndGet(slot);
+            if (epoch.get() == current) {
+                return current;
+            }
+            activeWriters.decrementAndGet(slot);
+        }
+    }
+
+    public void exitWrite(long writeEpoch) {
+        activeWriters.decrementAndGet((int) (writeEpoch & 1));
+    }
+
+    public long getOldestOpen() {
+        return oldestOpen;
+    }
+
+    public synchronized long open() {
+        long snapshotEpoch = epoch.getAndIncrement();
+        openSnapshots.merge(snapshotEpoch, 1, Integer::sum);
+        oldestOpen = openSnapshots.firstKey();
+
+        int slot = (int) (snapshotEpoch & 1);
+        while (activeWriters.get(slot) != 0) {
+            Thread.onSpinWait();
+        }
+        return snapshotEpoch;
+    }
+
+    public synchronized void close(long snapshotEpoch) {
+        Integer count = openSnapshots.get(snapshotEpoch);
+        if (count == null) {
+            return;
+        }
+        if (count == 1) {
+            openSnapshots.remove(snapshotEpoch);
+        } else {
+            openSnapshots.put(snapshotEpoch, count - 1);
+        }
+        oldestOpen = openSnapshots.isEmpty() ? Long.MAX_VALUE : openSnapshots.firstKey();
+    }
+}
@@ -0,0 +1,463 @@
+package com.banking.service;
+
+import com.banking.database.DatabaseConnection;
+import com.banking.database.PooledConnection;
+import com.banking.database.SqlStatement;
+import com.banking.model.Transaction;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cold tier for the ledger. Once a calendar month is entirely older than the configured age, its
+ * transactions are moved in one run into compressed read-only segment files under
+ * {@code <dir>/<yyyy-MM>/}, one segment per account-id range; archiving only closed months keeps
+ * every month at one segment per range instead of one per range per run. Publishing a segment is a
+ * single database transaction that records it in the manifest, indexes where each account's rows
+ * sit in the file, folds its rows into per-day summaries and deletes them from the hot table, so the
+ * ledger totals used by reconciliation never change. History reads go through the per-account index and only decompress that account's rows.
+ */
+public class TransactionArchive {
+    private static final int DEFAULT_MAX_AGE_DAYS = 90;
+    private static final int DEFAULT_RANGE_PREFIX_LENGTH = 4;
+    private static final int DEFAULT_MAX_SEGMENT_ROWS = 100_000;
+
+    private final Path directory;
+    private final int maxAgeDays;
+    private final int rangePrefixLength;
+    private final int maxSegmentRows;
+
+    public TransactionArchive(Path directory, int maxAgeDays, int rangePrefixLength, int maxSegmentRows) {
+        if (maxAgeDays < 1 || rangePrefixLength < 1 || maxSegmentRows < 1) {
+            throw new IllegalArgumentException("Age, range prefix and segment size must be positive");
+        }
+        this.directory = directory;
+        this.maxAgeDays = maxAgeDays;
+        this.rangePrefixLength = rangePrefixLength;
+        this.maxSegmentRows = maxSegmentRows;
+    }
+
+    public static TransactionArchive fromSystemProperties() {
+        return new TransactionArchive(Paths.get(System.getProperty("banking.archive.dir", "archive")),
+                Integer.getInteger("banking.archive.maxAgeDays", DEFAULT_MAX_AGE_DAYS),
+                Integer.getInteger("banking.archive.rangePrefix", DEFAULT_RANGE_PREFIX_LENGTH),
+                Integer.getInteger("banking.archive.maxSegmentRows", DEFAULT_MAX_SEGMENT_ROWS));
+    }
+
+    public RunSummary archive() throws SQLException, IOException {
+        return archiveBefore(LocalDate.now().minusDays(maxAgeDays).atStartOfDay());
+    }
+
+    // Only whole months before the cutoff are archived; the month the cutoff falls in waits for a later run.
+    public RunSummary archiveBefore(LocalDateTime requestedCutoff) throws SQLException, IOException {
+        long start = System.nanoTime();
+        LocalDateTime cutoff = YearMonth.from(requestedCutoff).atDay(1).atStartOfDay();
+        RunSummary summary = new RunSummary(cutoff);
+
+        LocalDateTime oldest = findOldest(cutoff);
+        if (oldest != null) {
+            for (YearMonth month = YearMonth.from(oldest); month.atDay(1).atStartOfDay().isBefore(cutoff);
+                 month = month.plusMonths(1)) {
+                LocalDateTime monthEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+                archiveWindow(month, month.atDay(1).atStartOfDay(),
+                        monthEnd.isBefore(cutoff) ? monthEnd : cutoff, summary);
+            }
+        }
+
+        summary.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return summary;
+    }
+
+    private LocalDateTime findOldest(LocalDateTime cutoff) throws SQLException {
+        try (PooledConnection conn = DatabaseConnection.borrow()) {
+            PreparedStatement pstmt = conn.prepare(SqlStatement.SELECT_OLDEST_TRANSACTION);
+            pstmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                Timestamp oldest = rs.next() ? rs.getTimestamp("oldest") : null;
+                return oldest != null ? oldest.toLocalDateTime() : null;
+            }
+        }
+    }
+
+    // Streams the window in account order and cuts a new segment whenever the range key changes or
+    // the current segment is full; a segment never splits one account's rows for the window.
+    private void archiveWindow(YearMonth month, LocalDateTime from, LocalDateTime to, RunSummary summary)
+            throws SQLException, IOException {
+        PendingSegment segment = null;
+        try (Connection conn = DatabaseConnection.openStreamingConnection()) {
+            conn.setReadOnly(true);
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(SqlStatement.SELECT_ARCHIVE_CANDIDATES.getSql())) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(from));
+                pstmt.setTimestamp(2, Timestamp.valueOf(to));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    String currentAccount = null;
+                    while (rs.next()) {
+                        String accountId = rs.getString("account_id");
+                        if (!accountId.equals(currentAccount)) {
+                            String rangeKey = rangeKey(accountId);
+                            if (segment != null
+                                    && (!segment.rangeKey.equals(rangeKey) || segment.writer.getRows() >= maxSegmentRows)) {
+                                publish(segment, from, to, summary);
+                                segment = null;
+                            }
+                            if (segment == null) {
+                                segment = new PendingSegment(month, rangeKey);
+                            }
+                            currentAccount = accountId;
+                        }
+                        segment.append(rs, accountId);
+                    }
+                }
+            }
+            conn.commit();
+
+            if (segment != null) {
+                publish(segment, from, to, summary);
+                segment = null;
+            }
+        } finally {
+            if (segment != null) {
+                segment.writer.close();
+            }
+        }
+    }
+
+    private void publish(PendingSegment segment, LocalDateTime from, LocalDateTime to, RunSummary summary)
+            throws IOException {
+        String sha256 = segment.writer.finish();
+        Path file = directory.resolve(segment.fileName());
+        try {
+            Files.move(segment.tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(segment.tempFile);
+            throw e;
+        }
+        file.toFile().setReadOnly();
+
+        try (PooledConnection conn = DatabaseConnection.borrow()) {
+            Connection connection = conn.getConnection();
+            int isolation = connection.getTransactionIsolation();
+            // The range delete would take gap locks under REPEATABLE READ and stall new postings
+            // for the same accounts until the commit.
+            connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            PreparedStatement index = conn.prepare(SqlStatement.INSERT_ARCHIVE_SEGMENT_ACCOUNT);
+            PreparedStatement summaries = conn.prepare(SqlStatement.UPSERT_DAILY_SUMMARY);
+            conn.begin();
+            try {
+                PreparedStatement manifest = conn.prepare(SqlStatement.INSERT_ARCHIVE_SEGMENT);
+                manifest.setString(1, segment.fileName());
+                manifest.setString(2, segment.rangeKey);
+                manifest.setString(3, segment.month.toString());
+                manifest.setString(4, segment.firstAccountId);
+                manifest.setString(5, segment.lastAccountId);
+                manifest.setInt(6, segment.writer.getRows());
+                manifest.setInt(7, segment.minTransactionId);
+                manifest.setInt(8, segment.maxTransactionId);
+                manifest.setTimestamp(9, Timestamp.valueOf(segment.minTimestamp));
+                manifest.setTimestamp(10, Timestamp.valueOf(segment.maxTimestamp));
+                manifest.setString(11, sha256);
+                manifest.executeUpdate();
+
+                for (ArchiveSegment.Member member : segment.writer.getMembers()) {
+                    index.setString(1, member.getAccountId());
+                    index.setString(2, segment.month.toString());
+                    index.setLong(3, member.getOffset());
+                    index.setInt(4, member.getLength());
+                    index.setInt(5, member.getRows());
+                    index.addBatch();
+                }
+                index.executeBatch();
+
+                for (DailyTotal total : segment.dailyTotals.values()) {
+                    summaries.setString(1, total.accountId);
+                    summaries.setDate(2, Date.valueOf(total.date));
+                    summaries.setString(3, total.type);
+                    summaries.setString(4, total.status);
+                    summaries.setInt(5, total.count);
+                    summaries.setBigDecimal(6, BigDecimal.valueOf(total.cents, 2));
+                    summaries.addBatch();
+                }
+                summaries.executeBatch();
+
+                PreparedStatement delete = conn.prepare(SqlStatement.DELETE_ARCHIVED_RANGE);
+                delete.setString(1, segment.firstAccountId);
+                delete.setString(2, segment.lastAccountId);
+                delete.setTimestamp(3, Timestamp.valueOf(from));
+                delete.setTimestamp(4, Timestamp.valueOf(to));
+                delete.setInt(5, segment.minTransactionId);
+                delete.setInt(6, segment.maxTransactionId);
+                int deleted = delete.executeUpdate();
+                if (deleted != segment.writer.getRows()) {
+                    throw new SQLException(String.format("Segment %s holds %d rows but the delete matched %d",
+                            segment.fileName(), segment.writer.getRows(), deleted));
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                index.clearBatch();
+                summaries.clearBatch();
+                conn.rollback();
+                throw e;
+            } finally {
+                connection.setTransactionIsolation(isolation);
+            }
+        } catch (SQLException e) {
+            file.toFile().setWritable(true);
+            Files.deleteIfExists(file);
+            summary.failedSegments++;
+            System.err.printf("Archive segment %s was not published, rows stay in the hot table: %s%n",
+                    segment.fileName(), e.getMessage());
+            return;
+        }
+
+        // Readers that lag behind the delete would see neither the rows nor the manifest entry.
+        for (String accountId : segment.accountIds) {
+            DatabaseConnection.recordWrite(accountId);
+        }
+        summary.segmentsWritten++;
+        summary.rowsArchived += segment.writer.getRows();
+        summary.bytesWritten += Files.size(file);
+    }
+
+    private String rangeKey(String accountId) {
+        String prefix = accountId.length() > rangePrefixLength ? accountId.substring(0, rangePrefixLength) : accountId;
+        return prefix.replaceAll("[^A-Za-z0-9]", "_");
+    }
+
+    /**
+     * Archived history of one account, newest first, skipping transaction ids already read from
+     * the hot table. Only segments the index lists for the account are opened, newest month first,
+     * and reading stops at the first one that fills the limit since they never overlap in time.
+     */
+    public List<Transaction> readHistory(PooledConnection conn, String accountId, int limit, Set<Integer> skipIds)
+            throws SQLException, IOException {
+        PreparedStatement pstmt = conn.prepare(SqlStatement.SELECT_ARCHIVED_ACCOUNT_MEMBERS);
+        pstmt.setString(1, accountId);
+        List<IndexedMember> members = readMembers(pstmt);
+
+        List<Transaction> transactions = new ArrayList<>();
+        for (IndexedMember member : members) {
+            for (Transaction transaction : ArchiveSegment.readAccount(directory.resolve(member.fileName), accountId,
+                    member.offset, member.length, member.rows)) {
+                if (!skipIds.contains(transaction.getTransactionId())) {
+                    transactions.add(transaction);
+                }
+            }
+            if (transactions.size() >= limit) {
+                break;
+            }
+        }
+
+        transactions.sort(Comparator.comparing(Transaction::getTimestamp)
+                .thenComparingInt(Transaction::getTransactionId).reversed());
+        return transactions.size() > limit ? new ArrayList<>(transactions.subList(0, limit)) : transactions;
+    }
+
+    // Where the account's archived rows are, newest month first. Run it in the same snapshot as the
+    // hot-table read so that every row is seen exactly once, then read them with streamHistory.
+    public List<IndexedMember> findHistory(Connection conn, String accountId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SqlStatement.SELECT_ARCHIVED_ACCOUNT_MEMBERS.getSql())) {
+            pstmt.setString(1, accountId);
+            return readMembers(pstmt);
+        }
+    }
+
+    private static List<IndexedMember> readMembers(PreparedStatement pstmt) throws SQLException {
+        List<IndexedMember> members = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                members.add(new IndexedMember(rs.getString("file_name"), rs.getLong("byte_offset"),
+                        rs.getInt("byte_length"), rs.getInt("row_count")));
+            }
+        }
+        return members;
+    }
+
+    // Hands the archived rows to the sink newest first, holding one month of the account in memory.
+    // Returns the number of rows.
+    public long streamHistory(String accountId, List<IndexedMember> members, TransactionSink sink) throws IOException {
+        long count = 0;
+        for (IndexedMember member : members) {
+            List<Transaction> transactions = ArchiveSegment.readAccount(directory.resolve(member.fileName), accountId,
+                    member.offset, member.length, member.rows);
+            for (int i = transactions.size() - 1; i >= 0; i--) {
+                sink.accept(transactions.get(i));
+            }
+            count += transactions.size();
+        }
+        return count;
+    }
+
+    @FunctionalInterface
+    public interface TransactionSink {
+        void accept(Transaction transaction) throws IOException;
+    }
+
+    /**
+     * Re-reads every published segment and checks it against its manifest row. Returns the file
+     * names that are missing, corrupt or altered.
+     */
+    public List<String> verify() throws SQLException {
+        List<String> bad = new ArrayList<>();
+        try (PooledConnection conn = DatabaseConnection.borrow();
+             ResultSet rs = conn.prepare(SqlStatement.SELECT_ALL_ARCHIVE_SEGMENTS).executeQuery()) {
+            while (rs.next()) {
+                String fileName = rs.getString("file_name");
+                Path file = directory.resolve(fileName);
+                try {
+                    if (!ArchiveSegment.checksum(file).equals(rs.getString("sha256"))
+                            || ArchiveSegment.count(file) != rs.getInt("row_count")) {
+                        bad.add(fileName);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Error reading archive segment " + fileName + ": " + e.getMessage());
+                    bad.add(fileName);
+                }
+            }
+        }
+        return bad;
+    }
+
+    private final class PendingSegment {
+        private final YearMonth month;
+        private final String rangeKey;
+        private final Path tempFile;
+        private final ArchiveSegment.Writer writer;
+        private final Map<String, DailyTotal> dailyTotals = new LinkedHashMap<>();
+        private final Set<String> accountIds = new LinkedHashSet<>();
+        private String firstAccountId;
+        private String lastAccountId;
+        private int minTransactionId = Integer.MAX_VALUE;
+        private int maxTransactionId = Integer.MIN_VALUE;
+        private LocalDateTime minTimestamp;
+        private LocalDateTime maxTimestamp;
+
+        PendingSegment(YearMonth month, String rangeKey) throws IOException {
+            this.month = month;
+            this.rangeKey = rangeKey;
+            Path monthDirectory = directory.resolve(month.toString());
+            Files.createDirectories(monthDirectory);
+            this.tempFile = Files.createTempFile(monthDirectory, rangeKey + "_", ".tmp");
+            this.writer = new ArchiveSegment.Writer(tempFile);
+        }
+
+        // Transaction ids are unique, so the id range makes the name unique within the month.
+        String fileName() {
+            return month + "/" + rangeKey + "_" + minTransactionId + "-" + maxTransactionId + ArchiveSegment.SUFFIX;
+        }
+
+        void append(ResultSet rs, String accountId) throws SQLException, IOException {
+            int transactionId = rs.getInt("transaction_id");
+            String type = rs.getString("transaction_type");
+            long cents = rs.getBigDecimal("amount").movePointRight(2).longValueExact();
+            LocalDateTime timestamp = rs.getTimestamp("timestamp").toLocalDateTime();
+            String status = rs.getString("status");
+
+            writer.append(transactionId, accountId, type, cents, rs.getString("related_account_id"),
+                    timestamp, status, rs.getString("remarks"));
+
+            if (firstAccountId == null) {
+                firstAccountId = accountId;
+            }
+            lastAccountId = accountId;
+            accountIds.add(accountId);
+            minTransactionId = Math.min(minTransactionId, transactionId);
+            maxTransactionId = Math.max(maxTransactionId, transactionId);
+            if (minTimestamp == null || timestamp.isBefore(minTimestamp)) {
+                minTimestamp = timestamp;
+            }
+            if (maxTimestamp == null || timestamp.isAfter(maxTimestamp)) {
+                maxTimestamp = timestamp;
+            }
+
+            LocalDate date = timestamp.toLocalDate();
+            String key = accountId + '|' + date + '|' + type + '|' + status;
+            DailyTotal total = dailyTotals.get(key);
+            if (total == null) {
+                total = new DailyTotal(accountId, date, type, status);
+                dailyTotals.put(key, total);
+            }
+            total.count++;
+            total.cents += cents;
+        }
+    }
+
+    public static final class IndexedMember {
+        private final String fileName;
+        private final long offset;
+        private final int length;
+        private final int rows;
+
+        IndexedMember(String fileName, long offset, int length, int rows) {
+            this.fileName = fileName;
+            this.offset = offset;
+            this.length = length;
+            this.rows = rows;
+        }
+    }
+
+    private static final class DailyTotal {
+        private final String accountId;
+        private final LocalDate date;
+        private final String type;
+        private final String status;
+        private int count;
+        private long cents;
+
+        DailyTotal(String accountId, LocalDate date, String type, String status) {
+            this.accountId = accountId;
+            this.date = date;
+            this.type = type;
+            this.status = status;
+        }
+    }
+
+    public static final class RunSummary {
+        private final LocalDateTime cutoff;
+        private int segmentsWritten;
+        private int failedSegments;
+        private long rowsArchived;
+        private long bytesWritten;
+        private long elapsedMillis;
+
+        private RunSummary(LocalDateTime cutoff) {
+            this.cutoff = cutoff;
+        }
+
+        public LocalDateTime getCutoff() { return cutoff; }
+        public int getSegmentsWritten() { return segmentsWritten; }
+        public int getFailedSegments() { return failedSegments; }
+        public long getRowsArchived() { return rowsArchived; }
+        public long getBytesWritten() { return bytesWritten; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public boolean isComplete() { return failedSegments == 0; }
+
+        @Override
+        public String toString() {
+            return String.format("Archive before %s: %,d rows in %d segments (%,d bytes, %d segments failed), %d ms",
+                    cutoff, rowsArchived, segmentsWritten, bytesWritten, failedSegments, elapsedMillis);
+        }
+    }
+}
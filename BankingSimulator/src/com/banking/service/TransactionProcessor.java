@@ -1,169 +1,286 @@
-package com.banking.service;
-
-import com.banking.database.DatabaseConnection;
-import com.banking.exception.*;
-import com.banking.model.Account;
-import com.banking.model.Transaction;
-
-import java.sql.*;
-
-public class TransactionProcessor {
-    private AccountManager accountManager;
-    private BalanceAlertTracker alertTracker;
-
-    public TransactionProcessor(AccountManager accountManager, BalanceAlertTracker alertTracker) {
-        this.accountManager = accountManager;
-        this.alertTracker = alertTracker;
-    }
-
-    public void deposit(String accountId, double amount) throws AccountNotFoundException,
-            InvalidAmountException,
-            DatabaseException {
-        validateAmount(amount);
-        Account account = accountManager.getAccount(accountId);
-
-        double newBalance = account.getBalance() + amount;
-        accountManager.updateBalance(accountId, newBalance);
-
-        Transaction transaction = new Transaction(accountId, "DEPOSIT", amount, null, "SUCCESS",
-                "Deposit successful");
-        logTransaction(transaction);
-
-        System.out.printf("Deposited %.2f to account %s. New balance: %.2f%n",
-                amount, accountId, newBalance);
-    }
-
-    public void withdraw(String accountId, double amount) throws AccountNotFoundException,
-            InvalidAmountException,
-            InsufficientBalanceException,
-            DatabaseException {
-        validateAmount(amount);
-        Account account = accountManager.getAccount(accountId);
-
-        if (account.getBalance() < amount) {
-            Transaction transaction = new Transaction(accountId, "WITHDRAWAL", amount, null,
-                    "FAILED", "Insufficient balance");
-            logTransaction(transaction);
-            throw new InsufficientBalanceException(
-                    String.format("Insufficient balance. Available: %.2f, Requested: %.2f",
-                            account.getBalance(), amount));
-        }
-
-        double newBalance = account.getBalance() - amount;
-        accountManager.updateBalance(accountId, newBalance);
-
-        Transaction transaction = new Transaction(accountId, "WITHDRAWAL", amount, null,
-                "SUCCESS", "Withdrawal successful");
-        logTransaction(transaction);
-
-        System.out.printf("Withdrew %.2f from account %s. New balance: %.2f%n",
-                amount, accountId, newBalance);
-
-        alertTracker.checkAndAlert(accountId);
-    }
-
-    public void transfer(String fromAccountId, String toAccountId, double amount)
-            throws AccountNotFoundException, InvalidAmountException,
-            InsufficientBalanceException, DatabaseException {
-
-        validateAmount(amount);
-
-        if (fromAccountId.equals(toAccountId)) {
-            throw new InvalidAmountException("Cannot transfer to the same account");
-        }
-
-        Account fromAccount = accountManager.getAccount(fromAccountId);
-        Account toAccount = accountManager.getAccount(toAccountId);
-
-        if (fromAccount.getBalance() < amount) {
-            Transaction transaction = new Transaction(fromAccountId, "TRANSFER_OUT", amount,
-                    toAccountId, "FAILED", "Insufficient balance");
-            logTransaction(transaction);
-            throw new InsufficientBalanceException(
-                    String.format("Insufficient balance for transfer. Available: %.2f, Requested: %.2f",
-                            fromAccount.getBalance(), amount));
-        }
-
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            double newFromBalance = fromAccount.getBalance() - amount;
-            accountManager.updateBalance(fromAccountId, newFromBalance);
-
-            double newToBalance = toAccount.getBalance() + amount;
-            accountManager.updateBalance(toAccountId, newToBalance);
-
-            Transaction outTransaction = new Transaction(fromAccountId, "TRANSFER_OUT", amount,
-                    toAccountId, "SUCCESS",
-                    "Transfer to " + toAccountId);
-            Transaction inTransaction = new Transaction(toAccountId, "TRANSFER_IN", amount,
-                    fromAccountId, "SUCCESS",
-                    "Transfer from " + fromAccountId);
-
-            logTransaction(outTransaction);
-            logTransaction(inTransaction);
-
-            conn.commit();
-
-            System.out.printf("Transferred %.2f from %s to %s%n", amount, fromAccountId, toAccountId);
-            System.out.printf("%s new balance: %.2f%n", fromAccountId, newFromBalance);
-            System.out.printf("%s new balance: %.2f%n", toAccountId, newToBalance);
-
-            alertTracker.checkAndAlert(fromAccountId);
-
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                    System.err.println("Transaction rolled back due to error");
-                } catch (SQLException se) {
-                    se.printStackTrace();
-                }
-            }
-            throw new DatabaseException("Transfer failed", e);
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
-    }
-
-    private void validateAmount(double amount) throws InvalidAmountException {
-        if (amount <= 0) {
-            throw new InvalidAmountException("Amount must be positive");
-        }
-        if (amount > 1000000) {
-            throw new InvalidAmountException("Amount exceeds maximum transaction limit");
-        }
-    }
-
-    private void logTransaction(Transaction transaction) throws DatabaseException {
-        String insertQuery = """
-            INSERT INTO transactions (account_id, transaction_type, amount, related_account_id, status, remarks) 
-            VALUES (?, ?, ?, ?, ?, ?)
-        """;
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
-
-            pstmt.setString(1, transaction.getAccountId());
-            pstmt.setString(2, transaction.getTransactionType());
-            pstmt.setDouble(3, transaction.getAmount());
-            pstmt.setString(4, transaction.getRelatedAccountId());
-            pstmt.setString(5, transaction.getStatus());
-            pstmt.setString(6, transaction.getRemarks());
-
-            pstmt.executeUpdate();
-
-        } catch (SQLException e) {
-            throw new DatabaseException("Error logging transaction", e);
-        }
-    }
-}
+package com.banking.service;
+
+import com.banking.capture.TracedCall;
+import com.banking.capture.WorkloadRecorder;
+import com.banking.exception.*;
+import com.banking.model.Account;
+import com.banking.model.LedgerEntry;
+import com.banking.model.TransactionRemark;
+import com.banking.monitoring.PostingEvent;
+
+import java.sql.*;
+
+public class TransactionProcessor {
+    private static final InvalidAmountException AMOUNT_NOT_POSITIVE =
+            new InvalidAmountException("Amount must be positive", false);
+    private static final InvalidAmountException AMOUNT_OVER_LIMIT =
+            new InvalidAmountException("Amount exceeds maximum transaction limit", false);
+    private static final InvalidAmountException SAME_ACCOUNT_TRANSFER =
+            new InvalidAmountException("Cannot transfer to the same account", false);
+    private static final InsufficientBalanceException INSUFFICIENT_BALANCE =
+            new InsufficientBalanceException("Insufficient balance", false);
+    private static final InsufficientBalanceException INSUFFICIENT_BALANCE_FOR_TRANSFER =
+            new InsufficientBalanceException("Insufficient balance for transfer", false);
+
+    private AccountManager accountManager;
+    private BalanceAlertTracker alertTracker;
+    private HoldManager holdManager;
+    private VelocityRuleEngine velocityRules;
+    private AdmissionController admissionController;
+    private LedgerWriter ledgerWriter;
+    private final LedgerEntryPool entryPool = new LedgerEntryPool(1024);
+    private final WorkloadRecorder recorder = WorkloadRecorder.active();
+    private volatile boolean consoleOutput = true;
+
+    public TransactionProcessor(AccountManager accountManager, BalanceAlertTracker alertTracker) {
+        this(accountManager, alertTracker, new HoldManager(), VelocityRuleEngine.withDefaultRules(),
+                AdmissionController.withDefaults(), new JdbcLedgerWriter(accountManager));
+    }
+
+    public TransactionProcessor(AccountManager accountManager, BalanceAlertTracker alertTracker,
+                                HoldManager holdManager, VelocityRuleEngine velocityRules,
+                                AdmissionController admissionController, LedgerWriter ledgerWriter) {
+        this.accountManager = accountManager;
+        this.alertTracker = alertTracker;
+        this.holdManager = holdManager;
+        this.velocityRules = velocityRules;
+        this.admissionController = admissionController;
+        this.ledgerWriter = ledgerWriter;
+    }
+
+    // Per-posting console lines are for the interactive menu; servers and benchmarks turn them off.
+    public void setConsoleOutput(boolean consoleOutput) {
+        this.consoleOutput = consoleOutput;
+    }
+
+    public void deposit(String accountId, double amount) throws AccountNotFoundException,
+            InvalidAmountException,
+            DatabaseException,
+            AdmissionRejectedException {
+        PostingEvent event = new PostingEvent(PostingEvent.DEPOSIT, accountId, null, amount);
+        event.begin();
+        long captureStart = recorder != null ? System.nanoTime() : 0;
+        Exception failure = null;
+        try {
+            validateAmount(amount);
+            // Look the account up before admission so unknown ids never get a rate bucket.
+            accountManager.getAccount(accountId);
+            admissionController.admit(accountId);
+            try {
+                processDeposit(accountId, amount);
+            } finally {
+                admissionController.release();
+            }
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.record(failure);
+            }
+            if (recorder != null) {
+                recorder.record(TracedCall.DEPOSIT, captureStart, System.nanoTime(), failure, accountId, null, amount);
+            }
+        }
+    }
+
+    public void withdraw(String accountId, double amount) throws AccountNotFoundException,
+            InvalidAmountException,
+            InsufficientBalanceException,
+            DatabaseException,
+            AdmissionRejectedException {
+        PostingEvent event = new PostingEvent(PostingEvent.WITHDRAWAL, accountId, null, amount);
+        event.begin();
+        long captureStart = recorder != null ? System.nanoTime() : 0;
+        Exception failure = null;
+        try {
+            validateAmount(amount);
+            Account account = accountManager.getAccount(accountId);
+            admissionController.admit(accountId);
+            try {
+                processWithdrawal(account, amount);
+            } finally {
+                admissionController.release();
+            }
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.record(failure);
+            }
+            if (recorder != null) {
+                recorder.record(TracedCall.WITHDRAW, captureStart, System.nanoTime(), failure, accountId, null, amount);
+            }
+        }
+    }
+
+    public void transfer(String fromAccountId, String toAccountId, double amount)
+            throws AccountNotFoundException, InvalidAmountException,
+            InsufficientBalanceException, DatabaseException, AdmissionRejectedException {
+        PostingEvent event = new PostingEvent(PostingEvent.TRANSFER, fromAccountId, toAccountId, amount);
+        event.begin();
+        long captureStart = recorder != null ? System.nanoTime() : 0;
+        Exception failure = null;
+        try {
+            validateAmount(amount);
+
+            if (fromAccountId.equals(toAccountId)) {
+                throw SAME_ACCOUNT_TRANSFER;
+            }
+
+            Account fromAccount = accountManager.getAccount(fromAccountId);
+            Account toAccount = accountManager.getAccount(toAccountId);
+            admissionController.admit(fromAccountId);
+            try {
+                processTransfer(fromAccount, toAccount, amount);
+            } finally {
+                admissionController.release();
+            }
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.record(failure);
+            }
+            if (recorder != null) {
+                recorder.record(TracedCall.TRANSFER, captureStart, System.nanoTime(), failure,
+                        fromAccountId, toAccountId, amount);
+            }
+        }
+    }
+
+    private void processDeposit(String accountId, double amount) throws AccountNotFoundException,
+            DatabaseException {
+        LedgerEntry entry = entryPool.acquire().set(accountId, "DEPOSIT", amount, null, "SUCCESS",
+                TransactionRemark.DEPOSIT_SUCCESSFUL, EpochClock.nowNanos());
+        long writeStart = System.nanoTime();
+        try {
+            ledgerWriter.post(entry, amount);
+        } catch (SQLException e) {
+            throw new DatabaseException("Error posting transaction", e);
+        } finally {
+            admissionController.recordWriteLatency(System.nanoTime() - writeStart);
+            entryPool.release(entry);
+        }
+        double newBalance = accountManager.applyCachedBalanceDelta(accountId, amount);
+
+        if (consoleOutput) {
+            System.out.printf("Deposited %.2f to account %s. New balance: %.2f%n",
+                    amount, accountId, newBalance);
+        }
+
+        checkVelocity(accountId, VelocityRuleEngine.PostingType.DEPOSIT, amount, null);
+    }
+
+    private void processWithdrawal(Account account, double amount) throws AccountNotFoundException,
+            InsufficientBalanceException,
+            DatabaseException {
+        String accountId = account.getAccountId();
+
+        long hold = holdManager.placeHold(account, amount);
+        if (hold == HoldManager.NO_HOLD) {
+            logFailure(accountId, "WITHDRAWAL", amount, null);
+            throw INSUFFICIENT_BALANCE;
+        }
+
+        LedgerEntry entry = entryPool.acquire().set(accountId, "WITHDRAWAL", amount, null, "SUCCESS",
+                TransactionRemark.WITHDRAWAL_SUCCESSFUL, EpochClock.nowNanos());
+        long writeStart = System.nanoTime();
+        try {
+            ledgerWriter.post(entry, -amount);
+        } catch (SQLException e) {
+            holdManager.voidHold(hold);
+            throw new DatabaseException("Error posting transaction", e);
+        } finally {
+            admissionController.recordWriteLatency(System.nanoTime() - writeStart);
+            entryPool.release(entry);
+        }
+        double newBalance = accountManager.applyCachedBalanceDelta(accountId, -amount);
+        holdManager.confirm(hold);
+
+        if (consoleOutput) {
+            System.out.printf("Withdrew %.2f from account %s. New balance: %.2f%n",
+                    amount, accountId, newBalance);
+        }
+
+        checkVelocity(accountId, VelocityRuleEngine.PostingType.WITHDRAWAL, amount, null);
+        alertTracker.checkAndAlert(accountId);
+    }
+
+    private void processTransfer(Account fromAccount, Account toAccount, double amount)
+            throws InsufficientBalanceException, DatabaseException {
+        String fromAccountId = fromAccount.getAccountId();
+        String toAccountId = toAccount.getAccountId();
+
+        long hold = holdManager.placeHold(fromAccount, amount);
+        if (hold == HoldManager.NO_HOLD) {
+            logFailure(fromAccountId, "TRANSFER_OUT", amount, toAccountId);
+            throw INSUFFICIENT_BALANCE_FOR_TRANSFER;
+        }
+
+        long now = EpochClock.nowNanos();
+        LedgerEntry outEntry = entryPool.acquire().set(fromAccountId, "TRANSFER_OUT", amount, toAccountId,
+                "SUCCESS", TransactionRemark.TRANSFER_TO, now);
+        LedgerEntry inEntry = entryPool.acquire().set(toAccountId, "TRANSFER_IN", amount, fromAccountId,
+                "SUCCESS", TransactionRemark.TRANSFER_FROM, now);
+        long writeStart = System.nanoTime();
+        try {
+            ledgerWriter.postTransfer(outEntry, inEntry);
+        } catch (SQLException e) {
+            holdManager.voidHold(hold);
+            throw new DatabaseException("Transfer failed", e);
+        } finally {
+            admissionController.recordWriteLatency(System.nanoTime() - writeStart);
+            entryPool.release(outEntry);
+            entryPool.release(inEntry);
+        }
+
+        accountManager.applyCachedTransfer(fromAccount, toAccount, amount);
+        holdManager.confirm(hold);
+
+        if (consoleOutput) {
+            System.out.printf("Transferred %.2f from %s to %s%n", amount, fromAccountId, toAccountId);
+            System.out.printf("%s new balance: %.2f%n", fromAccountId, fromAccount.getBalance());
+            System.out.printf("%s new balance: %.2f%n", toAccountId, toAccount.getBalance());
+        }
+
+        checkVelocity(fromAccountId, VelocityRuleEngine.PostingType.TRANSFER_OUT, amount, toAccountId);
+        checkVelocity(toAccountId, VelocityRuleEngine.PostingType.TRANSFER_IN, amount, fromAccountId);
+        alertTracker.checkAndAlert(fromAccountId);
+    }
+
+    private void checkVelocity(String accountId, VelocityRuleEngine.PostingType type, double amount,
+                               String counterpartyId) {
+        int breached = velocityRules.record(accountId, type, amount, counterpartyId);
+        for (int rule = 0; breached != 0; rule++, breached >>>= 1) {
+            if ((breached & 1) != 0) {
+                alertTracker.sendVelocityAlert(accountId, velocityRules.getRule(rule));
+            }
+        }
+    }
+
+    private void validateAmount(double amount) throws InvalidAmountException {
+        // Written so NaN fails too: every comparison with NaN is false.
+        if (!(amount > 0) || !Double.isFinite(amount)) {
+            throw AMOUNT_NOT_POSITIVE;
+        }
+        if (amount > 1000000) {
+            throw AMOUNT_OVER_LIMIT;
+        }
+    }
+
+    private void logFailure(String accountId, String transactionType, double amount, String relatedAccountId)
+            throws DatabaseException {
+        LedgerEntry entry = entryPool.acquire().set(accountId, transactionType, amount, relatedAccountId,
+                "FAILED", TransactionRemark.INSUFFICIENT_BALANCE, EpochClock.nowNanos());
+        try {
+            ledgerWriter.log(entry);
+        } catch (SQLException e) {
+            throw new DatabaseException("Error logging transaction", e);
+        } finally {
+            entryPool.release(entry);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.banking.service;
+
+import java.time.Duration;
+
+public class VelocityRule {
+    public enum Kind {
+        WITHDRAWAL_COUNT("withdrawals"),
+        OUTFLOW_AMOUNT("outflow"),
+        NEW_COUNTERPARTIES("new transfer counterparties");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() { return label; }
+    }
+
+    private final Kind kind;
+    private final double threshold;
+    private final Duration window;
+
+    private VelocityRule(Kind kind, double threshold, Duration window) {
+        if (threshold <= 0 || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Velocity rule needs a positive threshold and window");
+        }
+        this.kind = kind;
+        this.threshold = threshold;
+        this.window = window;
+    }
+
+    public static VelocityRule maxWithdrawals(int count, Duration window) {
+        return new VelocityRule(Kind.WITHDRAWAL_COUNT, count, window);
+    }
+
+    public static VelocityRule maxOutflow(double amount, Duration window) {
+        return new VelocityRule(Kind.OUTFLOW_AMOUNT, amount, window);
+    }
+
+    public static VelocityRule maxNewCounterparties(int count, Duration window) {
+        return new VelocityRule(Kind.NEW_COUNTERPARTIES, count, window);
+    }
+
+    public Kind getKind() { return kind; }
+    public double getThreshold() { return threshold; }
+    public Duration getWindow() { return window; }
+
+    @Override
+    public String toString() {
+        String limit = kind == Kind.OUTFLOW_AMOUNT ? String.format("%.2f", threshold) : String.valueOf((long) threshold);
+        return String.format("More than %s %s in %d minute(s)", limit, kind.getLabel(), window.toMinutes());
+    }
+}
@@ -0,0 +1,316 @@
+package com.banking.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates velocity rules inline as postings happen. Each account keeps, per rule, a ring of
+ * time buckets that together span the rule's window, so memory per account is bounded, nothing is
+ * read back from the transactions table, and a posting stays counted for its whole window however
+ * many postings follow it. A bucket is dropped only once all of it is older than the window, so
+ * totals may include up to one extra bucket (window / bucketsPerWindow) of older postings.
+ */
+public class VelocityRuleEngine {
+    public enum PostingType { DEPOSIT, WITHDRAWAL, TRANSFER_OUT, TRANSFER_IN }
+
+    private static final int DEFAULT_BUCKETS_PER_WINDOW = 16;
+    // Both powers of two; an account's set starts at the smaller and doubles up to the larger.
+    private static final int INITIAL_KNOWN_COUNTERPARTIES = 8;
+    private static final int KNOWN_COUNTERPARTIES = 128;
+
+    private static final byte FLAG_WITHDRAWAL = 1;
+    private static final byte FLAG_OUTFLOW = 2;
+    private static final byte FLAG_NEW_COUNTERPARTY = 4;
+
+    private final VelocityRule[] rules;
+    private final byte[] ruleFlags;
+    private final long[] ruleWindowNanos;
+    private final long[] ruleBucketNanos;
+    private final double[] ruleThresholds;
+    private final int bucketsPerWindow;
+    private final Map<String, AccountWindow> windows = new ConcurrentHashMap<>();
+
+    public VelocityRuleEngine(List<VelocityRule> rules) {
+        this(rules, DEFAULT_BUCKETS_PER_WINDOW);
+    }
+
+    public VelocityRuleEngine(List<VelocityRule> rules, int bucketsPerWindow) {
+        if (rules.size() > Integer.SIZE) {
+            throw new IllegalArgumentException("At most " + Integer.SIZE + " velocity rules are supported");
+        }
+        if (bucketsPerWindow < 1) {
+            throw new IllegalArgumentException("Buckets per window must be positive");
+        }
+        this.rules = rules.toArray(new VelocityRule[0]);
+        this.bucketsPerWindow = bucketsPerWindow;
+        this.ruleFlags = new byte[this.rules.length];
+        this.ruleWindowNanos = new long[this.rules.length];
+        this.ruleBucketNanos = new long[this.rules.length];
+        this.ruleThresholds = new double[this.rules.length];
+
+        for (int i = 0; i < this.rules.length; i++) {
+            VelocityRule rule = this.rules[i];
+            ruleFlags[i] = switch (rule.getKind()) {
+                case WITHDRAWAL_COUNT -> FLAG_WITHDRAWAL;
+                case OUTFLOW_AMOUNT -> FLAG_OUTFLOW;
+                case NEW_COUNTERPARTIES -> FLAG_NEW_COUNTERPARTY;
+            };
+            ruleWindowNanos[i] = rule.getWindow().toNanos();
+            ruleBucketNanos[i] = Math.max(1, ruleWindowNanos[i] / bucketsPerWindow);
+            ruleThresholds[i] = rule.getThreshold();
+        }
+    }
+
+    public static VelocityRuleEngine withDefaultRules() {
+        return new VelocityRuleEngine(List.of(
+                VelocityRule.maxWithdrawals(10, Duration.ofMinutes(10)),
+                VelocityRule.maxOutflow(50_000, Duration.ofMinutes(60)),
+                VelocityRule.maxNewCounterparties(5, Duration.ofMinutes(60))));
+    }
+
+    /**
+     * Records a posting and returns a bit mask of the rules it newly breaches (bit i is rule i).
+     * A rule is reported at most once per window for the same account.
+     */
+    public int record(String accountId, PostingType type, double amount, String counterpartyId) {
+        if (rules.length == 0) {
+            return 0;
+        }
+        AccountWindow window = windows.get(accountId);
+        if (window == null) {
+            window = windows.computeIfAbsent(accountId, id -> new AccountWindow(bucketsPerWindow, rules.length));
+        }
+        return window.record(this, System.nanoTime(), type, amount, counterpartyId);
+    }
+
+    public VelocityRule getRule(int index) {
+        return rules[index];
+    }
+
+    public int getRuleCount() {
+        return rules.length;
+    }
+
+    public void forget(String accountId) {
+        windows.remove(accountId);
+    }
+
+    // One more bucket than the window holds, so the oldest bucket kept always starts at or before
+    // the window's start and nothing inside the window has been dropped yet. All rules share two
+    // flat arrays so a posting touches as few cache lines as possible.
+    private static final class AccountWindow {
+        private static final long NOT_STARTED = Long.MIN_VALUE;
+
+        private final int ringLength;
+        // Per rule: the running total followed by the ring of buckets.
+        private final double[] values;
+        // Per rule: the newest bucket index followed by the time of the last alert.
+        private final long[] marks;
+        // Allocated on the account's first outgoing transfer; accounts that never send one pay nothing.
+        private KnownCounterparties knownCounterparties;
+
+        AccountWindow(int bucketsPerWindow, int ruleCount) {
+            this.ringLength = bucketsPerWindow + 1;
+            this.values = new double[ruleCount * (ringLength + 1)];
+            this.marks = new long[ruleCount * 2];
+            for (int r = 0; r < ruleCount; r++) {
+                marks[2 * r] = NOT_STARTED;
+            }
+        }
+
+        synchronized int record(VelocityRuleEngine engine, long now, PostingType type, double amount,
+                                String counterpartyId) {
+            byte eventFlags = switch (type) {
+                case WITHDRAWAL -> FLAG_WITHDRAWAL | FLAG_OUTFLOW;
+                case TRANSFER_OUT -> isNewCounterparty(counterpartyId)
+                        ? FLAG_OUTFLOW | FLAG_NEW_COUNTERPARTY : FLAG_OUTFLOW;
+                case DEPOSIT, TRANSFER_IN -> 0;
+            };
+            if (eventFlags == 0) {
+                return 0;
+            }
+
+            int breached = 0;
+            for (int r = 0; r < engine.ruleFlags.length; r++) {
+                byte ruleFlag = engine.ruleFlags[r];
+                if ((eventFlags & ruleFlag) == 0) {
+                    continue;
+                }
+                int base = r * (ringLength + 1);
+                long bucket = advance(r, base, Math.floorDiv(now, engine.ruleBucketNanos[r]));
+
+                double value = ruleFlag == FLAG_OUTFLOW ? amount : 1;
+                values[base + 1 + Math.floorMod(bucket, ringLength)] += value;
+                double total = values[base] += value;
+
+                long lastAlerted = marks[2 * r + 1];
+                if (total > engine.ruleThresholds[r]
+                        && (lastAlerted == 0 || now - lastAlerted > engine.ruleWindowNanos[r])) {
+                    marks[2 * r + 1] = now;
+                    breached |= 1 << r;
+                }
+            }
+            return breached;
+        }
+
+        // Drops the buckets that fell out of the ring since the last posting for this rule and returns
+        // the bucket to add to. A clock reading taken just before a newer one was recorded lands in its
+        // own bucket while that is still in the ring, otherwise in the newest one.
+        private long advance(int rule, int base, long bucket) {
+            long head = marks[2 * rule];
+            if (head == NOT_STARTED || bucket - head >= ringLength) {
+                Arrays.fill(values, base, base + ringLength + 1, 0);
+                marks[2 * rule] = bucket;
+                return bucket;
+            }
+            if (bucket <= head) {
+                return head - bucket < ringLength ? bucket : head;
+            }
+            for (long b = head + 1; b <= bucket; b++) {
+                int slot = base + 1 + Math.floorMod(b, ringLength);
+                values[base] -= values[slot];
+                values[slot] = 0;
+            }
+            marks[2 * rule] = bucket;
+            return bucket;
+        }
+
+        private boolean isNewCounterparty(String counterpartyId) {
+            if (counterpartyId == null) {
+                return false;
+            }
+            if (knownCounterparties == null) {
+                knownCounterparties = new KnownCounterparties();
+            }
+            return knownCounterparties.add(hash64(counterpartyId));
+        }
+    }
+
+    /**
+     * Least-recently-used set of counterparties in primitive arrays: a payee used regularly stays
+     * known, and a full set forgets only the payee unused for longest. Entries sit in a pool linked
+     * in use order and are found through an open-addressed index, so a lookup, insert or eviction
+     * is constant time. The pool starts small and doubles up to {@code KNOWN_COUNTERPARTIES}, after
+     * which nothing allocates. Ids are kept as 64-bit hashes; with at most 128 entries per account a
+     * collision, which would hide one new counterparty, is vanishingly unlikely.
+     */
+    private static final class KnownCounterparties {
+        private static final int NONE = -1;
+
+        private long[] hashes = new long[INITIAL_KNOWN_COUNTERPARTIES];
+        private int[] older = new int[INITIAL_KNOWN_COUNTERPARTIES];
+        private int[] newer = new int[INITIAL_KNOWN_COUNTERPARTIES];
+        // Twice the pool size so probe runs stay short; holds entry + 1, 0 is an empty slot.
+        private int[] index = new int[INITIAL_KNOWN_COUNTERPARTIES * 2];
+        private int shift = Long.SIZE - Integer.numberOfTrailingZeros(INITIAL_KNOWN_COUNTERPARTIES * 2);
+        private int size;
+        private int oldest = NONE;
+        private int newest = NONE;
+
+        // Returns true if the counterparty was not known yet.
+        boolean add(long hash) {
+            int slot = find(hash);
+            if (index[slot] != 0) {
+                int entry = index[slot] - 1;
+                if (entry != newest) {
+                    unlink(entry);
+                    linkNewest(entry);
+                }
+                return false;
+            }
+
+            int entry;
+            if (size == KNOWN_COUNTERPARTIES) {
+                entry = oldest;
+                unlink(entry);
+                removeSlot(find(hashes[entry]));
+            } else {
+                if (size == hashes.length) {
+                    grow();
+                }
+                entry = size++;
+            }
+            hashes[entry] = hash;
+            index[find(hash)] = entry + 1;
+            linkNewest(entry);
+            return true;
+        }
+
+        // The index slot holding the hash, or the empty slot that ends its probe run.
+        private int find(long hash) {
+            int mask = index.length - 1;
+            int slot = (int) ((hash * 0x9E3779B97F4A7C15L) >>> shift);
+            while (index[slot] != 0 && hashes[index[slot] - 1] != hash) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        // Backward-shift deletion: later entries of the probe run move up so lookups never stop
+        // early at the freed slot.
+        private void removeSlot(int slot) {
+            int mask = index.length - 1;
+            int free = slot;
+            for (int next = (free + 1) & mask; index[next] != 0; next = (next + 1) & mask) {
+                int home = (int) ((hashes[index[next] - 1] * 0x9E3779B97F4A7C15L) >>> shift);
+                boolean homeBetween = free <= next ? free < home && home <= next : free < home || home <= next;
+                if (!homeBetween) {
+                    index[free] = index[next];
+                    free = next;
+                }
+            }
+            index[free] = 0;
+        }
+
+        private void grow() {
+            int capacity = hashes.length * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            older = Arrays.copyOf(older, capacity);
+            newer = Arrays.copyOf(newer, capacity);
+            index = new int[capacity * 2];
+            shift--;
+            for (int entry = 0; entry < size; entry++) {
+                index[find(hashes[entry])] = entry + 1;
+            }
+        }
+
+        private void unlink(int entry) {
+            int before = older[entry];
+            int after = newer[entry];
+            if (before != NONE) {
+                newer[before] = after;
+            } else {
+                oldest = after;
+            }
+            if (after != NONE) {
+                older[after] = before;
+            } else {
+                newest = before;
+            }
+        }
+
+        private void linkNewest(int entry) {
+            older[entry] = newest;
+            newer[entry] = NONE;
+            if (newest != NONE) {
+                newer[newest] = entry;
+            } else {
+                oldest = entry;
+            }
+            newest = entry;
+        }
+    }
+
+    // FNV-1a over the chars; 0 marks an empty slot, so it is remapped.
+    private static long hash64(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash != 0 ? hash : 1;
+    }
+}